@@ -0,0 +1,54 @@
+package com.example.chatapp.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * Records the client address for per-address rate limits and turns new WebSocket
+ * handshakes away with 503 (Retry-After) while the node is at its connection cap,
+ * before any session state is allocated.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionHandshakeInterceptor implements HandshakeInterceptor {
+    
+    private static final String RETRY_AFTER_SECONDS = "5";
+    
+    private final StompAdmissionInterceptor admission;
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (admission.isAtCapacity()) {
+            Counter.builder("chat.websocket.rejected")
+                    .tag("reason", "handshake")
+                    .register(meterRegistry)
+                    .increment();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            return false;
+        }
+        
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote != null && remote.getAddress() != null) {
+            attributes.put(StompAdmissionInterceptor.CLIENT_ADDRESS_ATTRIBUTE, remote.getAddress().getHostAddress());
+        }
+        return true;
+    }
+    
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.chatapp.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One TokenBucket per key (user id, client address, ...), created on first use.
+ * Full buckets carry no state worth keeping and are removed by evictIdle.
+ */
+public class RateLimiter<K> {
+    
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Map<K, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+    
+    public boolean tryAcquire(K key) {
+        long now = System.nanoTime();
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst, now)).tryAcquire(now);
+    }
+    
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+    
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.chatapp.admission;
+
+import com.example.chatapp.config.WebSocketEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for clientInboundChannel.
+ * CONNECT is refused (STOMP ERROR frame, then the transport is closed) when the node already
+ * holds chat.websocket.admission.max-connections sessions or the user already has
+ * max-sessions-per-user. Every SEND is charged to the user's and the client address's token
+ * bucket; frames over either limit are dropped before they reach a controller or the broker.
+ * Runs right after StompAuthenticationInterceptor on the inbound channel.
+ */
+@Slf4j
+@Component
+public class StompAdmissionInterceptor implements ChannelInterceptor {
+    
+    /** Session attribute holding the client address, set by AdmissionHandshakeInterceptor */
+    public static final String CLIENT_ADDRESS_ATTRIBUTE = "clientAddress";
+    
+    private record Admitted(Optional<UUID> userId) {
+    }
+    
+    private final int maxConnections;
+    private final int maxSessionsPerUser;
+    private final RateLimiter<UUID> userLimiter;
+    private final RateLimiter<String> addressLimiter;
+    
+    private final Map<String, Admitted> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> sessionsPerUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    
+    private final Counter throttledByUser;
+    private final Counter throttledByAddress;
+    private final Counter rejectedAtCapacity;
+    private final Counter rejectedSessionLimit;
+    
+    public StompAdmissionInterceptor(MeterRegistry meterRegistry,
+                                     @Value("${chat.websocket.admission.max-connections:10000}") int maxConnections,
+                                     @Value("${chat.websocket.admission.max-sessions-per-user:5}") int maxSessionsPerUser,
+                                     @Value("${chat.websocket.rate.user.per-second:10}") double userRate,
+                                     @Value("${chat.websocket.rate.user.burst:20}") int userBurst,
+                                     @Value("${chat.websocket.rate.address.per-second:50}") double addressRate,
+                                     @Value("${chat.websocket.rate.address.burst:100}") int addressBurst) {
+        this.maxConnections = maxConnections;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.userLimiter = new RateLimiter<>(userRate, userBurst);
+        this.addressLimiter = new RateLimiter<>(addressRate, addressBurst);
+        
+        this.throttledByUser = throttled(meterRegistry, "user");
+        this.throttledByAddress = throttled(meterRegistry, "address");
+        this.rejectedAtCapacity = rejected(meterRegistry, "capacity");
+        this.rejectedSessionLimit = rejected(meterRegistry, "user-sessions");
+        Gauge.builder("chat.websocket.admitted", connections, AtomicInteger::get)
+                .description("STOMP sessions admitted on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.rate.buckets", this, i -> i.userLimiter.size() + i.addressLimiter.size())
+                .register(meterRegistry);
+    }
+    
+    public boolean isAtCapacity() {
+        return connections.get() >= maxConnections;
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        return switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> {
+                admit(accessor);
+                yield message;
+            }
+            case SEND -> withinRate(accessor) ? message : null;
+            default -> message;
+        };
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Admitted admitted = sessions.remove(event.getSessionId());
+        if (admitted == null) {
+            return;
+        }
+        connections.decrementAndGet();
+        admitted.userId().ifPresent(userId ->
+                sessionsPerUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null));
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.websocket.rate.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        userLimiter.evictIdle();
+        addressLimiter.evictIdle();
+    }
+    
+    private void admit(StompHeaderAccessor accessor) {
+        String sessionId = accessor.getSessionId();
+        if (sessions.containsKey(sessionId)) {
+            return;
+        }
+        
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedAtCapacity.increment();
+            throw new MessageDeliveryException("Server is at capacity, retry later");
+        }
+        
+        Optional<UUID> userId = userIdOf(accessor);
+        if (userId.isPresent()) {
+            boolean[] allowed = {true};
+            sessionsPerUser.compute(userId.get(), (id, count) -> {
+                int current = count != null ? count : 0;
+                if (current >= maxSessionsPerUser) {
+                    allowed[0] = false;
+                    return count;
+                }
+                return current + 1;
+            });
+            if (!allowed[0]) {
+                connections.decrementAndGet();
+                rejectedSessionLimit.increment();
+                throw new MessageDeliveryException("Too many open sessions for this user");
+            }
+        }
+        sessions.put(sessionId, new Admitted(userId));
+    }
+    
+    private boolean withinRate(StompHeaderAccessor accessor) {
+        Optional<UUID> userId = userIdOf(accessor);
+        if (userId.isPresent() && !userLimiter.tryAcquire(userId.get())) {
+            throttledByUser.increment();
+            log.debug("Throttled SEND to {} from user {}", accessor.getDestination(), userId.get());
+            return false;
+        }
+        
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        String address = attributes != null ? (String) attributes.get(CLIENT_ADDRESS_ATTRIBUTE) : null;
+        if (address != null && !addressLimiter.tryAcquire(address)) {
+            throttledByAddress.increment();
+            log.debug("Throttled SEND to {} from {}", accessor.getDestination(), address);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * The user of a session, set by StompAuthenticationInterceptor on CONNECT
+     */
+    private static Optional<UUID> userIdOf(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && attributes.get(WebSocketEventListener.USER_ID_ATTRIBUTE) instanceof UUID userId) {
+            return Optional.of(userId);
+        }
+        return Optional.empty();
+    }
+    
+    private static Counter throttled(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("chat.websocket.throttled")
+                .tag("limit", limit)
+                .description("SEND frames dropped by rate limiting")
+                .register(meterRegistry);
+    }
+    
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("chat.websocket.rejected")
+                .tag("reason", reason)
+                .description("Connections refused by admission control")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.chatapp.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single "theoretical arrival time" (GCRA):
+ * each permit pushes the time forward by one refill interval, and a permit is
+ * refused when that time would run more than the burst ahead of now.
+ * Equivalent to a bucket of burst tokens refilled at permitsPerSecond.
+ */
+public class TokenBucket {
+    
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong arrival;
+    
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.arrival = new AtomicLong(nowNanos);
+    }
+    
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * A bucket that has refilled completely behaves like a new one and can be dropped
+     */
+    public boolean isFull(long nowNanos) {
+        return arrival.get() - nowNanos <= 0;
+    }
+}
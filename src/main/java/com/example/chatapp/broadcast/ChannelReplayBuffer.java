@@ -0,0 +1,152 @@
+package com.example.chatapp.broadcast;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Numbers the events of each channel topic and keeps the most recent ones in memory.
+ * Every frame sent to /topic/channel/{id} (and its /updates stream) carries a "seq"
+ * header that grows by one per event, and a "seq-epoch" header naming the sequence it
+ * belongs to. A reconnecting client passes the last seq it saw and gets only the gap.
+ *
+ * Only the most recently used channels keep a ring; when a channel's ring is evicted
+ * (or the node restarts) its next ring starts a new epoch, which tells clients to fall
+ * back to a database catch-up.
+ *
+ * Sequences are per node, so they are only used with the in-process broker. With
+ * chat.websocket.broker=relay every node publishes to the same topic and their seqs would
+ * interleave; frames then go out without seq headers and resumes always use the database
+ * catch-up (resume-after-id).
+ */
+@Component
+public class ChannelReplayBuffer {
+    
+    public static final String SEQ_HEADER = "seq";
+    public static final String EPOCH_HEADER = "seq-epoch";
+    
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/channel/";
+    
+    public record Entry(long seq, WireFrame frame) {
+    }
+    
+    private static final class Ring {
+        final String epoch = UUID.randomUUID().toString().substring(0, 8);
+        final Entry[] slots;
+        long lastSeq;
+        
+        Ring(int capacity) {
+            this.slots = new Entry[capacity];
+        }
+    }
+    
+    private final int capacity;
+    private final boolean enabled;
+    private final Map<String, Ring> rings;
+    
+    public ChannelReplayBuffer(MeterRegistry meterRegistry,
+                               @Value("${chat.replay.buffer-size:128}") int capacity,
+                               @Value("${chat.replay.max-channels:500}") int maxChannels,
+                               @Value("${chat.websocket.broker:simple}") String broker) {
+        this.capacity = capacity;
+        this.enabled = !"relay".equals(broker);
+        // Access-ordered, so the least recently active channel loses its ring first
+        this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > maxChannels;
+            }
+        };
+        Gauge.builder("chat.replay.channels", this, buffer -> buffer.ringCount())
+                .description("Channel topics with an in-memory replay ring")
+                .register(meterRegistry);
+    }
+    
+    public static boolean isSequenced(String destination) {
+        return destination.startsWith(CHANNEL_TOPIC_PREFIX) && !destination.endsWith("/typing");
+    }
+    
+    /**
+     * Assign the next seq, remember the frame and hand the sequenced message to the sender.
+     * Runs under the channel's lock so subscribers see seqs in order.
+     */
+    public void publish(String destination, WireFrame frame, Consumer<Message<byte[]>> sender) {
+        if (!enabled) {
+            sender.accept(frame.toMessage());
+            return;
+        }
+        Ring ring = ringFor(destination, true);
+        synchronized (ring) {
+            long seq = ++ring.lastSeq;
+            Entry entry = new Entry(seq, frame);
+            ring.slots[(int) (seq % capacity)] = entry;
+            sender.accept(frame.toMessage(headers(SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE), ring.epoch, seq)));
+        }
+    }
+    
+    /**
+     * Events after fromSeq, oldest first; empty if the epoch is unknown or the gap
+     * is no longer fully in memory
+     */
+    public Optional<List<Entry>> since(String destination, String epoch, long fromSeq) {
+        Ring ring = ringFor(destination, false);
+        if (ring == null || !ring.epoch.equals(epoch)) {
+            return Optional.empty();
+        }
+        
+        synchronized (ring) {
+            long oldest = Math.max(1, ring.lastSeq - capacity + 1);
+            if (fromSeq > ring.lastSeq || fromSeq + 1 < oldest) {
+                return Optional.empty();
+            }
+            List<Entry> gap = new ArrayList<>((int) (ring.lastSeq - fromSeq));
+            for (long seq = fromSeq + 1; seq <= ring.lastSeq; seq++) {
+                gap.add(ring.slots[(int) (seq % capacity)]);
+            }
+            return Optional.of(gap);
+        }
+    }
+    
+    public String epochOf(String destination) {
+        Ring ring = ringFor(destination, false);
+        return ring != null ? ring.epoch : null;
+    }
+    
+    /**
+     * Add the seq headers to a message about to be sent
+     */
+    public static SimpMessageHeaderAccessor headers(SimpMessageHeaderAccessor headers, String epoch, long seq) {
+        headers.setNativeHeader(SEQ_HEADER, Long.toString(seq));
+        headers.setNativeHeader(EPOCH_HEADER, epoch);
+        return headers;
+    }
+    
+    private Ring ringFor(String destination, boolean create) {
+        synchronized (rings) {
+            Ring ring = rings.get(destination);
+            if (ring == null && create) {
+                ring = new Ring(capacity);
+                rings.put(destination, ring);
+            }
+            return ring;
+        }
+    }
+    
+    private int ringCount() {
+        synchronized (rings) {
+            return rings.size();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.cache.LocalCache;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.dto.MessageEventDTO;
+import com.example.chatapp.dto.UserDTO;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.pattern.observer.MessageEventType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single entry point for pushing message events to STOMP destinations.
+ * Each event is serialized once into a WireFrame that is reused for every destination
+ * it is published to, including the channel topic and per-user queues of the same message.
+ * Callers publish only after the write commits and each destination has a single publisher,
+ * so nothing here has to suppress duplicates.
+ */
+@Slf4j
+@Component
+public class MessageBroadcaster {
+    
+    private record FrameKey(Long messageId, MessageEventType type, LocalDateTime version) {
+    }
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final MembershipCache membershipCache;
+    private final ChannelReplayBuffer replayBuffer;
+    
+    private final LocalCache<FrameKey, WireFrame> frames;
+    
+    private final Counter framesBuilt;
+    
+    public MessageBroadcaster(SimpMessagingTemplate messagingTemplate,
+                              ObjectMapper objectMapper,
+                              MembershipCache membershipCache,
+                              ChannelReplayBuffer replayBuffer,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.broadcast.frame-cache-ttl:PT5M}") Duration frameCacheTtl,
+                              @Value("${chat.broadcast.frame-cache-size:10000}") int frameCacheSize) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.membershipCache = membershipCache;
+        this.replayBuffer = replayBuffer;
+        this.frames = new LocalCache<>("broadcast-frame", frameCacheTtl, frameCacheSize, meterRegistry);
+        this.framesBuilt = Counter.builder("chat.broadcast.frames")
+                .description("Message events serialized for broadcast")
+                .register(meterRegistry);
+    }
+    
+    public static String channelTopic(UUID channelId) {
+        return "/topic/channel/" + channelId;
+    }
+    
+    public void broadcast(Message message, MessageEventType type, String destination) {
+        broadcast(message, type, List.of(destination));
+    }
+    
+    /**
+     * Send one event to several destinations, serializing it at most once
+     */
+    public void broadcast(Message message, MessageEventType type, Collection<String> destinations) {
+        FrameKey frameKey = new FrameKey(message.getId(), type,
+                type == MessageEventType.UPDATED ? message.getEditedAt() : null);
+        WireFrame frame = null;
+        
+        for (String destination : destinations) {
+            if (frame == null) {
+                frame = frames.get(frameKey, key -> buildFrame(message, type));
+            }
+            if (ChannelReplayBuffer.isSequenced(destination)) {
+                replayBuffer.publish(destination, frame, sequenced -> messagingTemplate.send(destination, sequenced));
+            } else {
+                messagingTemplate.send(destination, frame.toMessage());
+            }
+        }
+    }
+    
+    private WireFrame buildFrame(Message message, MessageEventType type) {
+        // Only ids are read from the associations, so lazy proxies are never initialized
+        UUID authorId = message.getAuthor().getId();
+        UserDTO author = membershipCache.getUserProfile(authorId).orElse(null);
+        MessageEventDTO event = new MessageEventDTO(
+                type.name(),
+                message.getId(),
+                message.getChannel().getId(),
+                authorId,
+                author != null ? author.getUsername() : null,
+                author != null ? author.getAvatarUrl() : null,
+                message.getContext(),
+                message.getCreatedAt(),
+                message.getEditedAt(),
+                message.getReplyToMessage() != null ? message.getReplyToMessage().getId() : null);
+        
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(event);
+            framesBuilt.increment();
+            return new WireFrame(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize message " + message.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.chatapp.broadcast;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes frames straight to one subscription of one session through clientOutboundChannel,
+ * bypassing the broker (like a @SubscribeMapping reply). Used for catch-up traffic
+ * (offline queue, replay) that only the subscribing session should see and that must
+ * not depend on the broker having registered the subscription yet.
+ */
+@Component
+public class SessionSender {
+    
+    private final SimpMessagingTemplate template;
+    
+    public SessionSender(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                         @Qualifier("brokerMessageConverter") MessageConverter messageConverter) {
+        this.template = new SimpMessagingTemplate(clientOutboundChannel);
+        this.template.setMessageConverter(messageConverter);
+    }
+    
+    /**
+     * Headers addressed to one subscription; add native headers before sending
+     */
+    public static SimpMessageHeaderAccessor subscriptionHeaders(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setLeaveMutable(true);
+        return headers;
+    }
+    
+    public void convertAndSend(String sessionId, String subscriptionId, String destination, Object payload) {
+        template.convertAndSend(destination, payload,
+                subscriptionHeaders(sessionId, subscriptionId).getMessageHeaders());
+    }
+    
+    public void send(String destination, WireFrame frame, SimpMessageHeaderAccessor headers) {
+        template.send(destination, frame.toMessage(headers));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.dto.MessageProjection;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.repository.MessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Catches a re-subscribing client up on a channel topic. The client names the last event it saw
+ * with SUBSCRIBE headers: resume-epoch / resume-from-seq (from the seq headers of live frames)
+ * and, optionally, resume-after-id (the id of the last message it has). The gap is replayed
+ * from ChannelReplayBuffer when it is still in memory; otherwise new messages are read after
+ * resume-after-id with one keyset query. Replayed frames go only to the subscribing session.
+ */
+@Slf4j
+@Component
+public class SubscriptionResumer {
+    
+    public static final String RESUME_EPOCH_HEADER = "resume-epoch";
+    public static final String RESUME_SEQ_HEADER = "resume-from-seq";
+    public static final String RESUME_AFTER_ID_HEADER = "resume-after-id";
+    
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/channel/";
+    
+    private final ChannelReplayBuffer replayBuffer;
+    private final SessionSender sessionSender;
+    private final MessageRepository messageRepository;
+    private final MeterRegistry meterRegistry;
+    private final int fallbackLimit;
+    
+    public SubscriptionResumer(ChannelReplayBuffer replayBuffer,
+                               SessionSender sessionSender,
+                               MessageRepository messageRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.replay.fallback-limit:500}") int fallbackLimit) {
+        this.replayBuffer = replayBuffer;
+        this.sessionSender = sessionSender;
+        this.messageRepository = messageRepository;
+        this.meterRegistry = meterRegistry;
+        this.fallbackLimit = fallbackLimit;
+    }
+    
+    /**
+     * Replay what the subscriber missed; does nothing for subscriptions without resume headers
+     */
+    public void resume(StompHeaderAccessor subscribe) {
+        String destination = subscribe.getDestination();
+        if (destination == null || !ChannelReplayBuffer.isSequenced(destination)) {
+            return;
+        }
+        String epoch = subscribe.getFirstNativeHeader(RESUME_EPOCH_HEADER);
+        Long fromSeq = parseLong(subscribe.getFirstNativeHeader(RESUME_SEQ_HEADER));
+        Long afterId = parseLong(subscribe.getFirstNativeHeader(RESUME_AFTER_ID_HEADER));
+        if (fromSeq == null && afterId == null) {
+            return;
+        }
+        
+        UUID channelId = channelIdOf(destination);
+        // Access to the channel was checked by StompAuthenticationInterceptor before the subscription got here
+        if (channelId == null) {
+            return;
+        }
+        
+        String sessionId = subscribe.getSessionId();
+        String subscriptionId = subscribe.getSubscriptionId();
+        
+        if (epoch != null && fromSeq != null) {
+            Optional<List<ChannelReplayBuffer.Entry>> gap = replayBuffer.since(destination, epoch, fromSeq);
+            if (gap.isPresent()) {
+                for (ChannelReplayBuffer.Entry entry : gap.get()) {
+                    sessionSender.send(destination, entry.frame(), ChannelReplayBuffer.headers(
+                            SessionSender.subscriptionHeaders(sessionId, subscriptionId), epoch, entry.seq()));
+                }
+                count("memory", gap.get().size());
+                return;
+            }
+        }
+        
+        // The gap has left the buffer (or the ring was recreated): read it from the database.
+        // Only the message stream can be rebuilt this way; edits and deletions are not replayed.
+        if (afterId == null || destination.endsWith("/updates")) {
+            count("none", 0);
+            return;
+        }
+        Optional<Message> cursor = messageRepository.findById(afterId);
+        if (cursor.isEmpty() || !channelId.equals(cursor.get().getChannel().getId())) {
+            count("none", 0);
+            return;
+        }
+        
+        List<MessageProjection> missed = messageRepository.findInChannelAfter(channelId,
+                cursor.get().getCreatedAt(), afterId, PageRequest.of(0, fallbackLimit));
+        for (MessageProjection message : missed) {
+            sessionSender.convertAndSend(sessionId, subscriptionId, destination, message.toEventDTO("CREATED"));
+        }
+        count("database", missed.size());
+    }
+    
+    private void count(String result, int frames) {
+        meterRegistry.counter("chat.replay.resumes", "result", result).increment();
+        meterRegistry.counter("chat.replay.frames", "result", result).increment(frames);
+    }
+    
+    private static UUID channelIdOf(String destination) {
+        String rest = destination.substring(CHANNEL_TOPIC_PREFIX.length());
+        int slash = rest.indexOf('/');
+        try {
+            return UUID.fromString(slash < 0 ? rest : rest.substring(0, slash));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed resume header value {}", value);
+            return null;
+        }
+    }
+}
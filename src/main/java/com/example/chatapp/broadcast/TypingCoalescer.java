@@ -0,0 +1,171 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.dto.TypingEventDTO;
+import com.example.chatapp.dto.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a stream of per-keystroke typing frames into at most one "started typing"
+ * event per (user, channel) per window, plus one "stopped" event when the user
+ * stops explicitly or goes quiet for the timeout.
+ * Only users currently typing have an entry: two longs per (user, channel).
+ */
+@Slf4j
+@Component
+public class TypingCoalescer {
+    
+    private record TypingKey(UUID userId, UUID channelId) {
+    }
+    
+    /**
+     * Mutated only inside ConcurrentHashMap.compute for its key
+     */
+    private static final class TypingState {
+        long lastActivity;
+        long lastAnnounced;
+        
+        TypingState(long now) {
+            this.lastActivity = now;
+            this.lastAnnounced = now;
+        }
+    }
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MembershipCache membershipCache;
+    private final long windowMillis;
+    private final long timeoutMillis;
+    
+    private final Map<TypingKey, TypingState> typing = new ConcurrentHashMap<>();
+    
+    private final Counter framesReceived;
+    private final Counter framesSent;
+    
+    public TypingCoalescer(SimpMessagingTemplate messagingTemplate,
+                           MembershipCache membershipCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.typing.window:PT3S}") Duration window,
+                           @Value("${chat.typing.timeout:PT6S}") Duration timeout) {
+        this.messagingTemplate = messagingTemplate;
+        this.membershipCache = membershipCache;
+        this.windowMillis = window.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        
+        this.framesReceived = Counter.builder("chat.typing.frames")
+                .tag("direction", "received")
+                .register(meterRegistry);
+        this.framesSent = Counter.builder("chat.typing.frames")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        Gauge.builder("chat.typing.frame.reduction", this, TypingCoalescer::reductionRatio)
+                .description("Share of received typing frames that were not rebroadcast")
+                .register(meterRegistry);
+        Gauge.builder("chat.typing.active", typing, Map::size)
+                .register(meterRegistry);
+    }
+    
+    public static String typingTopic(UUID channelId) {
+        return "/topic/channel/" + channelId + "/typing";
+    }
+    
+    /**
+     * A typing frame from a client; cheap enough to be called on every keystroke
+     */
+    public void onTyping(UUID userId, UUID channelId) {
+        framesReceived.increment();
+        if (!canType(userId, channelId)) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        boolean[] announce = {false};
+        typing.compute(new TypingKey(userId, channelId), (key, state) -> {
+            if (state == null) {
+                announce[0] = true;
+                return new TypingState(now);
+            }
+            state.lastActivity = now;
+            // Re-announce once per window so late subscribers learn who is typing
+            if (now - state.lastAnnounced >= windowMillis) {
+                state.lastAnnounced = now;
+                announce[0] = true;
+            }
+            return state;
+        });
+        
+        if (announce[0]) {
+            publish(userId, channelId, true);
+        }
+    }
+    
+    /**
+     * Explicit stop (message sent or input cleared)
+     */
+    public void onStopped(UUID userId, UUID channelId) {
+        framesReceived.increment();
+        if (typing.remove(new TypingKey(userId, channelId)) != null) {
+            publish(userId, channelId, false);
+        }
+    }
+    
+    /**
+     * Emit "stopped" for everyone who went quiet without saying so
+     */
+    @Scheduled(fixedDelayString = "${chat.typing.sweep-interval-ms:1000}")
+    public void expireIdle() {
+        long cutoff = System.currentTimeMillis() - timeoutMillis;
+        for (TypingKey key : typing.keySet()) {
+            boolean[] expired = {false};
+            typing.computeIfPresent(key, (k, state) -> {
+                if (state.lastActivity <= cutoff) {
+                    expired[0] = true;
+                    return null;
+                }
+                return state;
+            });
+            if (expired[0]) {
+                publish(key.userId(), key.channelId(), false);
+            }
+        }
+    }
+    
+    private boolean canType(UUID userId, UUID channelId) {
+        Optional<ChannelRoute> route = membershipCache.getChannelRoute(channelId);
+        if (route.isEmpty()) {
+            return false;
+        }
+        UUID serverId = route.get().serverId();
+        if (serverId == null) {
+            // DM channels: only their participants, as for reading the topic
+            return membershipCache.getChannelParticipants(channelId).contains(userId);
+        }
+        return membershipCache.getMembership(userId, serverId).isPresent();
+    }
+    
+    private void publish(UUID userId, UUID channelId, boolean isTyping) {
+        UserDTO user = membershipCache.getUserProfile(userId).orElse(null);
+        TypingEventDTO event = new TypingEventDTO(channelId, userId,
+                user != null ? user.getUsername() : null, isTyping);
+        messagingTemplate.convertAndSend(typingTopic(channelId), event);
+        framesSent.increment();
+    }
+    
+    private double reductionRatio() {
+        double received = framesReceived.count();
+        return received == 0 ? 0 : 1 - framesSent.count() / received;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.cache.LocalCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-connection wire format negotiation.
+ * A client on the raw /ws-binary endpoint may send "wire-format: cbor" in its CONNECT (or STOMP) frame;
+ * from then on every JSON event pushed to that session (messages, typing, presence) is
+ * re-encoded as CBOR and sent as a binary WebSocket frame (content-type
+ * application/octet-stream, "wire-format: cbor" header). Everyone else keeps JSON.
+ * A given JSON payload is transcoded once and the result shared by all CBOR sessions.
+ * Register on both clientInboundChannel (negotiation) and clientOutboundChannel (encoding).
+ */
+@Slf4j
+@Component
+public class WireFormatInterceptor implements ChannelInterceptor {
+    
+    public static final String WIRE_FORMAT_HEADER = "wire-format";
+    public static final String CBOR = "cbor";
+    /** Session attribute set by the handshake of endpoints that can carry binary frames */
+    public static final String BINARY_TRANSPORT_ATTRIBUTE = "binaryTransport";
+    
+    private final ObjectMapper jsonMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    private final LocalCache<ByteBuffer, byte[]> transcoded;
+    
+    public WireFormatInterceptor(ObjectMapper jsonMapper, MeterRegistry meterRegistry) {
+        this.jsonMapper = jsonMapper;
+        this.transcoded = new LocalCache<>("cbor-frame", Duration.ofMinutes(1), 10_000, meterRegistry);
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        
+        if (accessor instanceof StompHeaderAccessor stomp && stomp.getCommand() != StompCommand.MESSAGE) {
+            // Client frames (CONNECT, SEND, ...) are never re-encoded
+            if (stomp.getCommand() == StompCommand.CONNECT || stomp.getCommand() == StompCommand.STOMP) {
+                negotiate(stomp);
+            }
+            return message;
+        }
+        
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE
+                && cborSessions.contains(accessor.getSessionId())
+                && isJson(accessor.getContentType())
+                && message.getPayload() instanceof byte[] payload) {
+            return toCbor(message, payload);
+        }
+        return message;
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+    
+    private void negotiate(StompHeaderAccessor accessor) {
+        if (!CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(WIRE_FORMAT_HEADER))) {
+            return;
+        }
+        
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_TRANSPORT_ATTRIBUTE))) {
+            // SockJS transports are text-only
+            log.debug("Session {} asked for CBOR on a text-only transport, keeping JSON", accessor.getSessionId());
+            return;
+        }
+        cborSessions.add(accessor.getSessionId());
+    }
+    
+    private Message<?> toCbor(Message<?> message, byte[] json) {
+        byte[] cbor;
+        try {
+            cbor = transcoded.get(ByteBuffer.wrap(json), key -> encode(json));
+        } catch (IllegalStateException e) {
+            log.warn("Sending JSON instead of CBOR: {}", e.getMessage());
+            return message;
+        }
+        
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+        // STOMP only uses binary WebSocket frames for application/octet-stream
+        headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        headers.setNativeHeader(WIRE_FORMAT_HEADER, CBOR);
+        return MessageBuilder.createMessage(cbor, headers.getMessageHeaders());
+    }
+    
+    private byte[] encode(byte[] json) {
+        try {
+            JsonNode tree = jsonMapper.readTree(json);
+            return cborMapper.writeValueAsBytes(tree);
+        } catch (IOException e) {
+            throw new IllegalStateException("payload is not valid JSON", e);
+        }
+    }
+    
+    private static boolean isJson(MimeType contentType) {
+        return contentType != null && MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+}
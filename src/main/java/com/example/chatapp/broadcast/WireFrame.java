@@ -0,0 +1,27 @@
+package com.example.chatapp.broadcast;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * A serialized broadcast payload. The same byte array is handed to the broker
+ * for every destination and every subscribed session; it must never be modified.
+ */
+public record WireFrame(byte[] payload) {
+    
+    public Message<byte[]> toMessage() {
+        return toMessage(SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE));
+    }
+    
+    /**
+     * Wrap the payload with caller-supplied headers (native headers, target session, ...)
+     */
+    public Message<byte[]> toMessage(SimpMessageHeaderAccessor headers) {
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.chatapp.cache;
+
+import com.example.chatapp.enums.ChannelType;
+
+import java.util.UUID;
+
+/**
+ * Immutable routing facts about a channel: the server it belongs to (null for DMs) and its type
+ */
+public record ChannelRoute(
+    UUID channelId,
+    UUID serverId,
+    ChannelType type
+) {
+    
+}
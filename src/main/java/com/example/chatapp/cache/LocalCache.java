@@ -0,0 +1,129 @@
+package com.example.chatapp.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded, expiring in-process cache with hit/miss metrics.
+ * Entries are dropped after the TTL even without explicit invalidation,
+ * which caps how long a missed invalidation can serve stale data.
+ * Values that carry their own deadline (e.g. a token's exp) can be given a
+ * valueExpiry; such entries expire at the earlier of the TTL and that deadline.
+ */
+public class LocalCache<K, V> {
+    
+    private record Entry<V>(V value, long expiresAt) {
+    }
+    
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Function<V, Instant> valueExpiry;
+    
+    private final Counter hits;
+    private final Counter misses;
+    
+    public LocalCache(String name, Duration ttl, int maxSize, MeterRegistry meterRegistry) {
+        this(name, ttl, maxSize, null, meterRegistry);
+    }
+    
+    public LocalCache(String name, Duration ttl, int maxSize, Function<V, Instant> valueExpiry,
+                      MeterRegistry meterRegistry) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.valueExpiry = valueExpiry;
+        this.hits = Counter.builder("chat.cache.requests")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.cache.requests")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("chat.cache.size", entries, Map::size)
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Return the cached value, loading and caching it on a miss.
+     * The loader must not return null.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - now > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        
+        misses.increment();
+        V value = loader.apply(key);
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+        }
+        entries.put(key, new Entry<>(value, expiresAt(value, now)));
+        return value;
+    }
+    
+    /**
+     * Store the value unless a live entry already exists for the key.
+     * @return true if the value was stored
+     */
+    public boolean putIfAbsent(K key, V value) {
+        long now = System.nanoTime();
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+        }
+        
+        boolean[] stored = {false};
+        entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.expiresAt() - now > 0) {
+                return existing;
+            }
+            stored[0] = true;
+            return new Entry<>(value, expiresAt(value, now));
+        });
+        return stored[0];
+    }
+    
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+    
+    public void invalidateIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+    
+    public void invalidateAll() {
+        entries.clear();
+    }
+    
+    private long expiresAt(V value, long now) {
+        if (valueExpiry == null) {
+            return now + ttlNanos;
+        }
+        long untilDeadline = Duration.between(Instant.now(), valueExpiry.apply(value)).toNanos();
+        return now + Math.min(ttlNanos, untilDeadline);
+    }
+    
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        // Still full of live entries: shed an arbitrary tenth rather than grow unbounded
+        Iterator<K> keys = entries.keySet().iterator();
+        int toShed = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        while (toShed-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.chatapp.cache;
+
+import com.example.chatapp.dto.UserDTO;
+import com.example.chatapp.repository.ChannelParticipantRepository;
+import com.example.chatapp.repository.ChannelRepository;
+import com.example.chatapp.repository.MembershipRepository;
+import com.example.chatapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process cache for the lookups done on every message send:
+ * membership (role + mute expiry) keyed by (userId, serverId), the member id set of each server
+ * and the server id set of each user,
+ * channel routes, DM channel participants and author profiles.
+ *
+ * Membership entries must be invalidated whenever a membership is created, removed or muted;
+ * see ServerServiceImpl, ModerationServiceImpl and the moderation commands.
+ * Channels, DM participants and user profiles are never modified after creation, so they only expire.
+ *
+ * The cache is per node and evictions are local. With several nodes (relay broker, jdbc registry),
+ * a mute, kick or ban made on one node is only seen by the others once their entry expires,
+ * so up to chat.cache.membership.ttl later; lower the TTL if that window is too long.
+ */
+@Slf4j
+@Component
+public class MembershipCache {
+    
+    private record MembershipKey(UUID userId, UUID serverId) {
+    }
+    
+    private final MembershipRepository membershipRepository;
+    private final ChannelRepository channelRepository;
+    private final ChannelParticipantRepository channelParticipantRepository;
+    private final UserRepository userRepository;
+    
+    private final LocalCache<MembershipKey, Optional<MembershipSnapshot>> memberships;
+    private final LocalCache<UUID, Set<UUID>> serverMemberIds;
+    private final LocalCache<UUID, Set<UUID>> userServerIds;
+    private final LocalCache<UUID, Optional<ChannelRoute>> channelRoutes;
+    private final LocalCache<UUID, Set<UUID>> channelParticipants;
+    private final LocalCache<UUID, Optional<UserDTO>> userProfiles;
+    
+    private final List<BiConsumer<UUID, UUID>> evictionListeners = new CopyOnWriteArrayList<>();
+    
+    public MembershipCache(MembershipRepository membershipRepository,
+                           ChannelRepository channelRepository,
+                           ChannelParticipantRepository channelParticipantRepository,
+                           UserRepository userRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.cache.membership.ttl:PT10M}") Duration ttl,
+                           @Value("${chat.cache.membership.max-size:100000}") int maxSize,
+                           @Value("${chat.cache.server-members.max-size:1000}") int serverMaxSize) {
+        this.membershipRepository = membershipRepository;
+        this.channelRepository = channelRepository;
+        this.channelParticipantRepository = channelParticipantRepository;
+        this.userRepository = userRepository;
+        this.memberships = new LocalCache<>("membership", ttl, maxSize, meterRegistry);
+        this.serverMemberIds = new LocalCache<>("server-members", ttl, serverMaxSize, meterRegistry);
+        this.userServerIds = new LocalCache<>("user-servers", ttl, maxSize, meterRegistry);
+        this.channelRoutes = new LocalCache<>("channel-route", ttl, maxSize, meterRegistry);
+        this.channelParticipants = new LocalCache<>("channel-participants", ttl, maxSize, meterRegistry);
+        this.userProfiles = new LocalCache<>("user-profile", ttl, maxSize, meterRegistry);
+    }
+    
+    /**
+     * Membership of a user in a server, empty if the user is not a member (negative results are cached too)
+     */
+    public Optional<MembershipSnapshot> getMembership(UUID userId, UUID serverId) {
+        return memberships.get(new MembershipKey(userId, serverId),
+                key -> membershipRepository.findSnapshot(key.userId(), key.serverId()));
+    }
+    
+    /**
+     * Immutable set of the user ids that are members of a server
+     */
+    public Set<UUID> getServerMemberIds(UUID serverId) {
+        return serverMemberIds.get(serverId, id -> Set.copyOf(membershipRepository.findUserIdsByServerId(id)));
+    }
+    
+    /**
+     * Immutable set of the ids of the servers a user is a member of
+     */
+    public Set<UUID> getUserServerIds(UUID userId) {
+        return userServerIds.get(userId, id -> Set.copyOf(membershipRepository.findServerIdsByUserId(id)));
+    }
+    
+    public Optional<ChannelRoute> getChannelRoute(UUID channelId) {
+        return channelRoutes.get(channelId, channelRepository::findRouteById);
+    }
+    
+    /**
+     * Immutable set of the participants of a DM channel, empty for server channels
+     */
+    public Set<UUID> getChannelParticipants(UUID channelId) {
+        return channelParticipants.get(channelId, id -> Set.copyOf(channelParticipantRepository.findUserIdsByChannelId(id)));
+    }
+    
+    public Optional<UserDTO> getUserProfile(UUID userId) {
+        return userProfiles.get(userId, userRepository::findProfileById);
+    }
+    
+    /**
+     * Drop the cached membership now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void evictMembership(UUID userId, UUID serverId) {
+        MembershipKey key = new MembershipKey(userId, serverId);
+        memberships.invalidate(key);
+        serverMemberIds.invalidate(serverId);
+        userServerIds.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    memberships.invalidate(key);
+                    serverMemberIds.invalidate(serverId);
+                    userServerIds.invalidate(userId);
+                    notifyEviction(userId, serverId);
+                }
+            });
+        } else {
+            notifyEviction(userId, serverId);
+        }
+        log.debug("Membership cache evicted for user {} in server {}", userId, serverId);
+    }
+    
+    /**
+     * Called with (userId, serverId) whenever a membership is evicted, once the change is committed,
+     * for holders of longer-lived copies of membership data (STOMP session principals, online index)
+     */
+    public void addEvictionListener(BiConsumer<UUID, UUID> listener) {
+        evictionListeners.add(listener);
+    }
+    
+    private void notifyEviction(UUID userId, UUID serverId) {
+        evictionListeners.forEach(listener -> listener.accept(userId, serverId));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.chatapp.cache;
+
+import com.example.chatapp.enums.MembershipRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * The parts of a Membership the send path needs: role and mute expiry
+ */
+public record MembershipSnapshot(
+    MembershipRole role,
+    LocalDateTime mutedUntil
+) {
+    
+    public boolean isMutedAt(LocalDateTime time) {
+        return mutedUntil != null && mutedUntil.isAfter(time);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.chatapp.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates the full-text search column and GIN index on messages.
+ * The tsvector is a stored generated column, so PostgreSQL keeps it in sync
+ * with messages.context on every insert and update.
+ * Runs while the context starts, right after Hibernate has created the schema and before
+ * the web server accepts requests, so search never sees a missing column. The column is
+ * only added when absent and the index is built concurrently, so restarts against a live
+ * table do not hold long locks.
+ * Skipped on databases other than PostgreSQL (e.g. H2 in tests).
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class MessageSearchIndexInitializer {
+    
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    
+    @PostConstruct
+    public void createSearchIndex() {
+        if (!isPostgres()) {
+            log.info("Full-text search index skipped: database is not PostgreSQL");
+            return;
+        }
+        
+        Integer columns = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_name = 'messages' AND column_name = 'search_vector'", Integer.class);
+        if (columns == null || columns == 0) {
+            jdbcTemplate.execute("ALTER TABLE messages ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (to_tsvector('simple', coalesce(context, ''))) STORED");
+        }
+        // Auto-commit, as CONCURRENTLY cannot run inside a transaction
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_messages_search_vector " +
+                "ON messages USING GIN (search_vector)");
+        
+        log.info("Full-text search index ready on messages.search_vector");
+    }
+    
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not determine database type, skipping search index", e);
+            return false;
+        }
+    }
+}
@@ -53,6 +53,9 @@ public class SecurityConfig {
                     "/configuration/**",
                     "/webjars/**",
                     "/api/test/**",
+                    // STOMP sessions authenticate on CONNECT (StompAuthenticationInterceptor)
+                    "/ws/**",
+                    "/ws-binary/**",
                     "/error"
                 ).permitAll()
                 .anyRequest().authenticated()
@@ -1,25 +1,87 @@
 package com.example.chatapp.config;
 
+import com.example.chatapp.admission.AdmissionHandshakeInterceptor;
+import com.example.chatapp.broadcast.WireFormatInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
 
 /**
  * WebSocket configuration for real-time messaging
  * Enables STOMP over WebSocket
+ * chat.websocket.broker=simple keeps subscriptions in this JVM (single node);
+ * chat.websocket.broker=relay forwards /topic and /queue to an external STOMP broker
+ * (RabbitMQ, ActiveMQ, Artemis) so every node sees every broadcast.
  */
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private final AdmissionHandshakeInterceptor admissionHandshakeInterceptor;
+    
+    @Value("${chat.websocket.broker:simple}")
+    private String brokerMode;
+    
+    @Value("${chat.websocket.relay.host:localhost}")
+    private String relayHost;
+    
+    @Value("${chat.websocket.relay.port:61613}")
+    private int relayPort;
+    
+    @Value("${chat.websocket.relay.client-login:guest}")
+    private String clientLogin;
+    
+    @Value("${chat.websocket.relay.client-passcode:guest}")
+    private String clientPasscode;
+    
+    @Value("${chat.websocket.relay.system-login:guest}")
+    private String systemLogin;
+    
+    @Value("${chat.websocket.relay.system-passcode:guest}")
+    private String systemPasscode;
+    
+    @Value("${chat.websocket.relay.virtual-host:}")
+    private String virtualHost;
+    
+    public WebSocketConfig(AdmissionHandshakeInterceptor admissionHandshakeInterceptor) {
+        this.admissionHandshakeInterceptor = admissionHandshakeInterceptor;
+    }
+    
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker
         // /topic for broadcasting to all subscribers
         // /queue for point-to-point messaging
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            var relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    // Let /user destinations resolve sessions held by other nodes
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (StringUtils.hasText(virtualHost)) {
+                relay.setVirtualHost(virtualHost);
+            }
+            log.info("STOMP broker relay enabled: {}:{}", relayHost, relayPort);
+        } else {
+            // Enable a simple in-memory message broker
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         
         // Prefix for messages from clients
         config.setApplicationDestinationPrefixes("/app");
@@ -30,6 +92,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Register STOMP endpoint
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
+                .addInterceptors(admissionHandshakeInterceptor)
                 .withSockJS();
+        
+        // Plain WebSocket only (no SockJS fallback), so binary frames are possible; see WireFormatInterceptor.
+        // permessage-deflate is negotiated by the servlet container when the client offers it.
+        registry.addEndpoint("/ws-binary")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(admissionHandshakeInterceptor, new BinaryTransportHandshakeInterceptor());
+    }
+    
+    /**
+     * Marks sessions of endpoints that can carry binary frames
+     */
+    private static class BinaryTransportHandshakeInterceptor implements HandshakeInterceptor {
+        
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            attributes.put(WireFormatInterceptor.BINARY_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+            return true;
+        }
+        
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
     }
 }
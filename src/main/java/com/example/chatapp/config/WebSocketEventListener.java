@@ -0,0 +1,87 @@
+package com.example.chatapp.config;
+
+import com.example.chatapp.broadcast.SubscriptionResumer;
+import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import com.example.chatapp.presence.OnlineMemberIndex;
+import com.example.chatapp.presence.PresenceBroadcaster;
+import com.example.chatapp.presence.PresenceReaper;
+import com.example.chatapp.security.StompPrincipal;
+import com.example.chatapp.service.OfflineMessageService;
+import com.example.chatapp.service.impl.OfflineMessageServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps WebSocketConnectionManager in sync with the STOMP session lifecycle.
+ * A session is registered as soon as its CONNECT frame is authenticated
+ * and is removed on DISCONNECT or when the transport closes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketEventListener {
+    
+    public static final String USER_ID_ATTRIBUTE = "userId";
+    public static final String OFFLINE_SUBSCRIPTION_ATTRIBUTE = "offlineSubscriptionId";
+    
+    private final WebSocketConnectionManager connectionManager;
+    private final OfflineMessageService offlineMessageService;
+    private final SubscriptionResumer subscriptionResumer;
+    private final PresenceBroadcaster presenceBroadcaster;
+    private final OnlineMemberIndex onlineMemberIndex;
+    private final PresenceReaper presenceReaper;
+    
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        // The user was authenticated by StompAuthenticationInterceptor before this event fired
+        if (event.getUser() instanceof StompPrincipal principal) {
+            connectionManager.registerSession(principal.userId(), StompHeaderAccessor.wrap(event.getMessage()).getSessionId());
+            onlineMemberIndex.userOnline(principal.userId());
+            presenceReaper.activity(principal.userId());
+            presenceBroadcaster.touch(principal.userId());
+        }
+    }
+    
+    /**
+     * Subscribing to one's own private queue starts draining the offline queue into that subscription;
+     * subscribing to a channel topic with resume headers replays the events the client missed;
+     * subscribing to a server's presence topic sends the current presence snapshot
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        UUID userId = attributes != null ? (UUID) attributes.get(USER_ID_ATTRIBUTE) : null;
+        subscriptionResumer.resume(accessor);
+        PresenceBroadcaster.serverIdOf(accessor.getDestination()).ifPresent(serverId ->
+                presenceBroadcaster.sendSnapshot(serverId, accessor.getSessionId(), accessor.getSubscriptionId()));
+        if (userId == null || !OfflineMessageServiceImpl.userQueue(userId).equals(accessor.getDestination())) {
+            return;
+        }
+        
+        attributes.put(OFFLINE_SUBSCRIPTION_ATTRIBUTE, accessor.getSubscriptionId());
+        offlineMessageService.deliverNextBatch(userId, accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // Fired for client DISCONNECT frames and for dropped transports alike
+        UUID userId = connectionManager.removeSession(event.getSessionId());
+        if (userId != null) {
+            if (!connectionManager.isUserConnected(userId)) {
+                onlineMemberIndex.userOffline(userId);
+                presenceReaper.disconnected(userId);
+            }
+            presenceBroadcaster.touch(userId);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.chatapp.config;
+
+import com.example.chatapp.admission.StompAdmissionInterceptor;
+import com.example.chatapp.broadcast.WireFormatInterceptor;
+import com.example.chatapp.presence.PresenceReaper;
+import com.example.chatapp.security.StompAuthenticationInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools and per-session send limits for STOMP traffic.
+ * clientInboundChannel handles frames from clients, clientOutboundChannel writes
+ * broker messages to sessions. Each session buffers what it cannot send right away;
+ * a session that stays blocked longer than the send time limit, or buffers more than
+ * the send buffer limit, is a slow consumer and is closed (SESSION_NOT_RELIABLE)
+ * so it cannot hold up broadcasts to everyone else.
+ */
+@Slf4j
+@Configuration
+public class WebSocketTransportConfig implements WebSocketMessageBrokerConfigurer {
+    
+    private final MeterRegistry meterRegistry;
+    private final WireFormatInterceptor wireFormatInterceptor;
+    private final StompAdmissionInterceptor admissionInterceptor;
+    private final StompAuthenticationInterceptor authenticationInterceptor;
+    private final PresenceReaper presenceReaper;
+    
+    private final Counter evictedSessions;
+    private final AtomicInteger openSessions = new AtomicInteger();
+    
+    @Value("${chat.websocket.inbound.pool-size:16}")
+    private int inboundPoolSize;
+    
+    @Value("${chat.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+    
+    @Value("${chat.websocket.outbound.pool-size:16}")
+    private int outboundPoolSize;
+    
+    @Value("${chat.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+    
+    @Value("${chat.websocket.virtual-threads:false}")
+    private boolean virtualThreads;
+    
+    @Value("${chat.websocket.send-time-limit:PT10S}")
+    private Duration sendTimeLimit;
+    
+    @Value("${chat.websocket.send-buffer-size-limit:512KB}")
+    private DataSize sendBufferSizeLimit;
+    
+    @Value("${chat.websocket.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+    
+    public WebSocketTransportConfig(MeterRegistry meterRegistry,
+                                    WireFormatInterceptor wireFormatInterceptor,
+                                    StompAdmissionInterceptor admissionInterceptor,
+                                    StompAuthenticationInterceptor authenticationInterceptor,
+                                    PresenceReaper presenceReaper) {
+        this.meterRegistry = meterRegistry;
+        this.wireFormatInterceptor = wireFormatInterceptor;
+        this.admissionInterceptor = admissionInterceptor;
+        this.authenticationInterceptor = authenticationInterceptor;
+        this.presenceReaper = presenceReaper;
+        this.evictedSessions = Counter.builder("chat.websocket.sessions.evicted")
+                .description("Sessions closed because they could not keep up with outbound messages")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.sessions.open", openSessions, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+    
+    @Bean
+    public ThreadPoolTaskExecutor stompInboundExecutor() {
+        return createExecutor("inbound", inboundPoolSize, inboundQueueCapacity);
+    }
+    
+    @Bean
+    public ThreadPoolTaskExecutor stompOutboundExecutor() {
+        return createExecutor("outbound", outboundPoolSize, outboundQueueCapacity);
+    }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authentication first (admission limits are per user), then admission, so throttled frames cost nothing further
+        // and do not count as presence activity
+        registration.executor(stompInboundExecutor())
+                .interceptors(authenticationInterceptor, admissionInterceptor, presenceReaper, wireFormatInterceptor);
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(stompOutboundExecutor())
+                .interceptors(wireFormatInterceptor);
+    }
+    
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        // Several outbound workers must not reorder the messages of one session
+        registry.setPreservePublishOrder(true);
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferSizeLimit.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes())
+                .addDecoratorFactory(SessionMetricsHandler::new);
+    }
+    
+    private ThreadPoolTaskExecutor createExecutor(String channel, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setVirtualThreads(virtualThreads);
+        // A full queue pushes back on the producer (socket reader or broker) instead of losing frames
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        
+        Gauge.builder("chat.websocket.channel.queue", executor,
+                        e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("channel", channel)
+                .description("Messages waiting for a " + channel + " channel worker")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        return executor;
+    }
+    
+    /**
+     * Counts open sessions and slow-consumer evictions
+     */
+    private class SessionMetricsHandler extends WebSocketHandlerDecorator {
+        
+        SessionMetricsHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+        
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            openSessions.incrementAndGet();
+            super.afterConnectionEstablished(session);
+        }
+        
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            openSessions.decrementAndGet();
+            if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                evictedSessions.increment();
+                log.warn("Evicted slow WebSocket session {}", session.getId());
+            }
+            super.afterConnectionClosed(session, closeStatus);
+        }
+    }
+}
@@ -2,9 +2,7 @@ package com.example.chatapp.controller;
 
 import com.example.chatapp.dto.ChannelDTO;
 import com.example.chatapp.dto.CreateChannelRequest;
-import com.example.chatapp.entity.User;
-import com.example.chatapp.repository.UserRepository;
-import com.example.chatapp.security.JwtUtil;
+import com.example.chatapp.security.JwtPrincipal;
 import com.example.chatapp.service.ChannelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +11,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,22 +24,31 @@ import java.util.UUID;
 public class ChannelController {
     
     private final ChannelService channelService;
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
     
     @Operation(summary = "Create channel", description = "Create a new channel in a server (Factory Pattern)", 
                security = @SecurityRequirement(name = "bearer-jwt"))
     @PostMapping
     public ResponseEntity<ChannelDTO> createChannel(
             @RequestBody CreateChannelRequest request,
-            @Parameter(hidden = true) @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         ChannelDTO channel = channelService.createChannel(request, userId);
         
         return ResponseEntity.status(HttpStatus.CREATED).body(channel);
     }
     
+    @Operation(summary = "Open DM", description = "Get or create the direct message channel with another user",
+               security = @SecurityRequirement(name = "bearer-jwt"))
+    @PostMapping("/dm/{userId}")
+    public ResponseEntity<ChannelDTO> openDirectChannel(
+            @PathVariable UUID userId,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        
+        ChannelDTO channel = channelService.openDirectChannel(principal.userId(), userId);
+        return ResponseEntity.ok(channel);
+    }
+    
     @GetMapping("/server/{serverId}")
     public ResponseEntity<List<ChannelDTO>> getServerChannels(
             @PathVariable UUID serverId) {
@@ -56,12 +64,4 @@ public class ChannelController {
         ChannelDTO channel = channelService.getChannelById(channelId);
         return ResponseEntity.ok(channel);
     }
-    
-    private UUID extractUserIdFromToken(String token) {
-        String jwt = token.replace("Bearer ", "");
-        String email = jwtUtil.getEmailFromToken(jwt);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
@@ -2,9 +2,7 @@ package com.example.chatapp.controller;
 
 import com.example.chatapp.dto.CreateMessageRequest;
 import com.example.chatapp.dto.MessageDTO;
-import com.example.chatapp.entity.User;
-import com.example.chatapp.repository.UserRepository;
-import com.example.chatapp.security.JwtUtil;
+import com.example.chatapp.security.JwtPrincipal;
 import com.example.chatapp.service.MessageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +10,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,26 +23,36 @@ import java.util.UUID;
 public class MessageController {
     
     private final MessageService messageService;
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
     
     @PostMapping
     public ResponseEntity<MessageDTO> createMessage(
             @RequestBody CreateMessageRequest request,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         MessageDTO message = messageService.createMessage(request, userId);
         return ResponseEntity.ok(message);
     }
     
+    @Operation(summary = "Create messages in bulk",
+               description = "Validate and store up to 500 messages in one request, for bridges, imports and bots")
+    @PostMapping("/batch")
+    public ResponseEntity<List<MessageDTO>> createMessages(
+            @RequestBody List<CreateMessageRequest> requests,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        
+        UUID userId = principal.userId();
+        List<MessageDTO> messages = messageService.createMessages(requests, userId);
+        return ResponseEntity.ok(messages);
+    }
+    
     @PutMapping("/{messageId}")
     public ResponseEntity<MessageDTO> updateMessage(
             @PathVariable Long messageId,
             @RequestBody String newContent,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         MessageDTO message = messageService.updateMessage(messageId, newContent, userId);
         return ResponseEntity.ok(message);
     }
@@ -51,33 +60,37 @@ public class MessageController {
     @DeleteMapping("/{messageId}")
     public ResponseEntity<Void> deleteMessage(
             @PathVariable Long messageId,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         messageService.deleteMessage(messageId, userId);
         return ResponseEntity.ok().build();
     }
     
+    @Operation(summary = "Get channel history",
+               description = "Keyset-paginated channel history, newest first. Pass the id of the oldest "
+                       + "message you have as 'before' to page back, or the newest as 'after' to catch up.")
     @GetMapping("/channel/{channelId}")
-    public ResponseEntity<List<MessageDTO>> getChannelMessages(@PathVariable UUID channelId) {
-        List<MessageDTO> messages = messageService.getChannelMessages(channelId);
+    public ResponseEntity<List<MessageDTO>> getChannelMessages(
+            @PathVariable UUID channelId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<MessageDTO> messages = messageService.getChannelMessages(channelId, before, after, limit);
         return ResponseEntity.ok(messages);
     }
     
+    @Operation(summary = "Search messages",
+               description = "Full-text search ranked by relevance. Scope it with either channelId or serverId.")
     @GetMapping("/search")
     public ResponseEntity<List<MessageDTO>> searchMessages(
-            @RequestParam UUID channelId,
-            @RequestParam String keyword) {
+            @RequestParam(required = false) UUID channelId,
+            @RequestParam(required = false) UUID serverId,
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         
-        List<MessageDTO> messages = messageService.searchMessages(channelId, keyword);
+        List<MessageDTO> messages = messageService.searchMessages(channelId, serverId, keyword, page, size);
         return ResponseEntity.ok(messages);
     }
-    
-    private UUID extractUserIdFromToken(String token) {
-        String jwt = token.replace("Bearer ", "");
-        String email = jwtUtil.getEmailFromToken(jwt);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
@@ -2,8 +2,7 @@ package com.example.chatapp.controller;
 
 import com.example.chatapp.dto.NotificationDTO;
 import com.example.chatapp.entity.User;
-import com.example.chatapp.repository.UserRepository;
-import com.example.chatapp.security.JwtUtil;
+import com.example.chatapp.security.JwtPrincipal;
 import com.example.chatapp.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +10,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,14 +23,12 @@ import java.util.UUID;
 public class NotificationController {
     
     private final NotificationService notificationService;
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
     
     @GetMapping
     public ResponseEntity<List<NotificationDTO>> getUserNotifications(
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         List<NotificationDTO> notifications = notificationService.getUserNotifications(userId);
         
         return ResponseEntity.ok(notifications);
@@ -46,19 +44,11 @@ public class NotificationController {
     
     @PutMapping("/read-all")
     public ResponseEntity<Void> markAllAsRead(
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         notificationService.markAllAsRead(userId);
         
         return ResponseEntity.ok().build();
     }
-    
-    private UUID extractUserIdFromToken(String token) {
-        String jwt = token.replace("Bearer ", "");
-        String email = jwtUtil.getEmailFromToken(jwt);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
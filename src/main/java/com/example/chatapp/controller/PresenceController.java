@@ -1,9 +1,8 @@
 package com.example.chatapp.controller;
 
 import com.example.chatapp.dto.UserDTO;
-import com.example.chatapp.entity.User;
-import com.example.chatapp.repository.UserRepository;
-import com.example.chatapp.security.JwtUtil;
+import com.example.chatapp.presence.PresenceSnapshot;
+import com.example.chatapp.security.JwtPrincipal;
 import com.example.chatapp.service.PresenceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,11 +10,11 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Tag(name = "Presence", description = "User presence and online status endpoints (Singleton Pattern)")
 @RestController
@@ -24,37 +23,36 @@ import java.util.stream.Collectors;
 public class PresenceController {
     
     private final PresenceService presenceService;
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
     
     @PutMapping("/status")
     public ResponseEntity<Void> updatePresence(
             @RequestParam String status,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         presenceService.updatePresence(userId, status);
         
         return ResponseEntity.ok().build();
     }
     
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<PresenceSnapshot> getPresence(@PathVariable UUID userId) {
+        return presenceService.getPresence(userId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/server/{serverId}/online")
     public ResponseEntity<List<UserDTO>> getOnlineMembers(
-            @PathVariable UUID serverId) {
-        
-        List<User> onlineUsers = presenceService.getOnlineMembers(serverId);
-        List<UserDTO> userDTOs = onlineUsers.stream()
-                .map(user -> new UserDTO(user.getId(), user.getUsername(), user.getAvatarUrl()))
-                .collect(Collectors.toList());
+            @PathVariable UUID serverId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         
-        return ResponseEntity.ok(userDTOs);
+        return ResponseEntity.ok(presenceService.getOnlineMembers(serverId, page, size));
     }
     
-    private UUID extractUserIdFromToken(String token) {
-        String jwt = token.replace("Bearer ", "");
-        String email = jwtUtil.getEmailFromToken(jwt);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
+    @GetMapping("/server/{serverId}/online/count")
+    public ResponseEntity<Integer> countOnlineMembers(@PathVariable UUID serverId) {
+        return ResponseEntity.ok(presenceService.countOnlineMembers(serverId));
     }
 }
@@ -2,9 +2,7 @@ package com.example.chatapp.controller;
 
 import com.example.chatapp.dto.CreateServerRequest;
 import com.example.chatapp.dto.ServerDTO;
-import com.example.chatapp.entity.User;
-import com.example.chatapp.repository.UserRepository;
-import com.example.chatapp.security.JwtUtil;
+import com.example.chatapp.security.JwtPrincipal;
 import com.example.chatapp.service.ServerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +11,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,15 +24,13 @@ import java.util.UUID;
 public class ServerController {
     
     private final ServerService serverService;
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
     
     @PostMapping
     public ResponseEntity<ServerDTO> createServer(
             @RequestBody CreateServerRequest request,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         ServerDTO server = serverService.createServer(request, userId);
         
         return ResponseEntity.status(HttpStatus.CREATED).body(server);
@@ -41,9 +38,9 @@ public class ServerController {
     
     @GetMapping("/user")
     public ResponseEntity<List<ServerDTO>> getUserServers(
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         List<ServerDTO> servers = serverService.getUserServers(userId);
         
         return ResponseEntity.ok(servers);
@@ -60,9 +57,9 @@ public class ServerController {
     @PostMapping("/{serverId}/join")
     public ResponseEntity<Void> joinServer(
             @PathVariable UUID serverId,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         serverService.joinServer(serverId, userId);
         
         return ResponseEntity.ok().build();
@@ -71,19 +68,11 @@ public class ServerController {
     @PostMapping("/{serverId}/leave")
     public ResponseEntity<Void> leaveServer(
             @PathVariable UUID serverId,
-            @RequestHeader("Authorization") String token) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        UUID userId = extractUserIdFromToken(token);
+        UUID userId = principal.userId();
         serverService.leaveServer(serverId, userId);
         
         return ResponseEntity.ok().build();
     }
-    
-    private UUID extractUserIdFromToken(String token) {
-        String jwt = token.replace("Bearer ", "");
-        String email = jwtUtil.getEmailFromToken(jwt);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
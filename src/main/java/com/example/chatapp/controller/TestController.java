@@ -1,5 +1,6 @@
 package com.example.chatapp.controller;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.dto.*;
 import com.example.chatapp.entity.*;
 import com.example.chatapp.enums.ChannelType;
@@ -25,6 +26,7 @@ public class TestController {
     private final UserRepository userRepository;
     private final ServerRepository serverRepository;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     
     // Injecting all required services
     private final MessageService messageService;
@@ -106,6 +108,7 @@ public class TestController {
             Membership membership = membershipRepository.findByUserAndServer(user, serverEntity).orElseThrow();
             membership.setMutedUntil(LocalDateTime.now().plusMinutes(5));
             membershipRepository.save(membership); // Apply Mute manually for test
+            membershipCache.evictMembership(user.getId(), serverEntity.getId()); // Step 6 cached the unmuted membership
             
             try {
                 messageService.createMessage(
@@ -126,6 +129,7 @@ public class TestController {
             logs.add("🔹 Step 8: Testing Membership Removal...");
             // Simulating a Kick by deleting membership
             membershipRepository.delete(membership);
+            membershipCache.evictMembership(user.getId(), serverEntity.getId());
             
             boolean stillMember = membershipRepository.existsByUserAndServer(user, serverEntity);
             if (stillMember) {
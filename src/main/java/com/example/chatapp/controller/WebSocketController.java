@@ -1,14 +1,27 @@
 package com.example.chatapp.controller;
 
-import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import com.example.chatapp.broadcast.TypingCoalescer;
+import com.example.chatapp.config.WebSocketEventListener;
+import com.example.chatapp.dto.CreateMessageRequest;
+import com.example.chatapp.exception.BadRequestException;
+import com.example.chatapp.security.StompPrincipal;
+import com.example.chatapp.service.MessageService;
+import com.example.chatapp.service.OfflineMessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -19,31 +32,106 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class WebSocketController {
     
-    private final WebSocketConnectionManager connectionManager;
+    private final MessageService messageService;
+    private final TypingCoalescer typingCoalescer;
+    private final OfflineMessageService offlineMessageService;
     
     @MessageMapping("/chat.connect")
     @SendTo("/topic/public")
-    public String connect(@Payload String userId, SimpMessageHeaderAccessor headerAccessor) {
-        UUID userUuid = UUID.fromString(userId);
+    public String connect(@Payload(required = false) String userId, StompPrincipal principal) {
+        // The session was authenticated and registered on CONNECT; the payload is no longer trusted
+        if (userId != null && !userId.equals(principal.userId().toString())) {
+            log.warn("chat.connect payload {} ignored for authenticated user {}", userId, principal.userId());
+        }
         
-        // Store session in connection manager
-        headerAccessor.getSessionAttributes().put("userId", userUuid);
-        
-        log.info("User connected: {}", userId);
-        return userId + " joined the chat";
+        log.info("User connected: {}", principal.userId());
+        return principal.userId() + " joined the chat";
     }
     
+    /**
+     * Kept for older clients; the session stays registered until the STOMP DISCONNECT frame or the
+     * transport close, where WebSocketEventListener removes it and updates presence
+     */
     @MessageMapping("/chat.disconnect")
-    public void disconnect(@Payload String userId) {
-        UUID userUuid = UUID.fromString(userId);
-        connectionManager.removeSession(userUuid);
+    public void disconnect(StompPrincipal principal) {
+        log.info("User {} announced disconnect", principal.userId());
+    }
+    
+    /**
+     * Stored all or nothing; when nothing was stored the sender gets an error frame (see handleError)
+     */
+    @MessageMapping("/chat.sendBatch")
+    public void sendBatch(@Payload List<CreateMessageRequest> requests, SimpMessageHeaderAccessor headerAccessor) {
+        UUID userId = (UUID) headerAccessor.getSessionAttributes().get(WebSocketEventListener.USER_ID_ATTRIBUTE);
+        if (userId == null) {
+            throw new BadRequestException("Session is not authenticated");
+        }
+        
+        // Delivery to subscribers happens through the usual observer / strategy fan-out
+        messageService.createMessages(requests, userId);
+    }
+    
+    /**
+     * Report a failed frame to the session that sent it, on /user/queue/errors, with the same body
+     * REST returns: 400 for rejected input, 500 for anything else
+     */
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleError(Exception ex, SimpMessageHeaderAccessor headerAccessor) {
+        boolean badRequest = ex instanceof BadRequestException;
+        if (badRequest) {
+            log.debug("Frame to {} rejected: {}", headerAccessor.getDestination(), ex.getMessage());
+        } else {
+            log.error("Frame to {} failed", headerAccessor.getDestination(), ex);
+        }
         
-        log.info("User disconnected: {}", userId);
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now().toString());
+        response.put("status", badRequest ? 400 : 500);
+        response.put("error", badRequest ? "Bad Request" : "Internal Server Error");
+        response.put("message", badRequest ? ex.getMessage() : "Request could not be processed");
+        response.put("destination", headerAccessor.getDestination());
+        return response;
+    }
+    
+    /**
+     * Acknowledge an offline batch (payload: its ackIds); the next batch follows on the same subscription
+     */
+    @MessageMapping("/offline.ack")
+    public void acknowledgeOffline(@Payload List<Long> ackIds, SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+        UUID userId = (UUID) attributes.get(WebSocketEventListener.USER_ID_ATTRIBUTE);
+        if (userId == null) {
+            return;
+        }
+        String subscriptionId = (String) attributes.get(WebSocketEventListener.OFFLINE_SUBSCRIPTION_ATTRIBUTE);
+        offlineMessageService.acknowledge(userId, ackIds, headerAccessor.getSessionId(), subscriptionId);
+    }
+    
+    /**
+     * Send on every keystroke; subscribers of /topic/channel/{channelId}/typing get coalesced events
+     */
+    @MessageMapping("/channel/{channelId}/typing")
+    public void typing(@DestinationVariable UUID channelId, SimpMessageHeaderAccessor headerAccessor) {
+        UUID userId = (UUID) headerAccessor.getSessionAttributes().get(WebSocketEventListener.USER_ID_ATTRIBUTE);
+        if (userId != null) {
+            typingCoalescer.onTyping(userId, channelId);
+        }
+    }
+    
+    @MessageMapping("/channel/{channelId}/typing.stop")
+    public void typingStopped(@DestinationVariable UUID channelId, SimpMessageHeaderAccessor headerAccessor) {
+        UUID userId = (UUID) headerAccessor.getSessionAttributes().get(WebSocketEventListener.USER_ID_ATTRIBUTE);
+        if (userId != null) {
+            typingCoalescer.onStopped(userId, channelId);
+        }
     }
     
-    @MessageMapping("/chat.typing")
-    @SendTo("/topic/typing")
-    public String typing(@Payload String message) {
-        return message;
+    /**
+     * User activity without side effects (e.g. focus, scrolling); PresenceReaper has already
+     * recorded it on the inbound channel, this only gives the frame a destination
+     */
+    @MessageMapping("/presence.heartbeat")
+    public void presenceHeartbeat() {
     }
 }
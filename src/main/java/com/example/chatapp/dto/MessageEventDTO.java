@@ -0,0 +1,23 @@
+package com.example.chatapp.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact wire format for message broadcasts over STOMP.
+ * Flat, so it is serialized once per event without touching lazy entity associations.
+ */
+public record MessageEventDTO(
+    String event,
+    Long id,
+    UUID channelId,
+    UUID authorId,
+    String authorUsername,
+    String authorAvatarUrl,
+    String content,
+    LocalDateTime createdAt,
+    LocalDateTime editedAt,
+    Long replyToMessageId
+) {
+    
+}
@@ -0,0 +1,40 @@
+package com.example.chatapp.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Flat read model for messages, filled by a single JPQL constructor query
+ * so that author, channel and reply-to do not have to be lazily loaded.
+ */
+public record MessageProjection(
+    Long id,
+    UUID channelId,
+    UUID authorId,
+    String authorUsername,
+    String authorAvatarUrl,
+    String content,
+    LocalDateTime createdAt,
+    LocalDateTime editedAt,
+    Long replyToMessageId
+) {
+    
+    public MessageDTO toDTO() {
+        return new MessageDTO(
+            id,
+            channelId,
+            new UserDTO(authorId, authorUsername, authorAvatarUrl),
+            content,
+            createdAt,
+            editedAt,
+            replyToMessageId,
+            List.of() // Attachments - simplified
+        );
+    }
+    
+    public MessageEventDTO toEventDTO(String event) {
+        return new MessageEventDTO(event, id, channelId, authorId, authorUsername, authorAvatarUrl,
+                content, createdAt, editedAt, replyToMessageId);
+    }
+}
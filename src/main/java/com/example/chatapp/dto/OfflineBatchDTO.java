@@ -0,0 +1,16 @@
+package com.example.chatapp.dto;
+
+import java.util.List;
+
+/**
+ * One batch of queued direct messages, oldest first.
+ * The client acknowledges it by sending ackIds back to /app/offline.ack, which
+ * removes exactly those entries from the queue and triggers the next batch if hasMore.
+ */
+public record OfflineBatchDTO(
+    List<MessageEventDTO> messages,
+    List<Long> ackIds,
+    boolean hasMore
+) {
+    
+}
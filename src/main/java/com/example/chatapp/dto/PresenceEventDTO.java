@@ -0,0 +1,21 @@
+package com.example.chatapp.dto;
+
+import com.example.chatapp.enums.PresenceStatus;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Pushed to /topic/server/{serverId}/presence.
+ * type SNAPSHOT (once, to a new subscriber): every member who is not offline.
+ * type DELTA: only the members whose status changed since the previous event.
+ */
+public record PresenceEventDTO(
+    String type,
+    UUID serverId,
+    Map<UUID, PresenceStatus> users
+) {
+    
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+}
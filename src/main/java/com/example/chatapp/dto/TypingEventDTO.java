@@ -0,0 +1,15 @@
+package com.example.chatapp.dto;
+
+import java.util.UUID;
+
+/**
+ * Pushed to /topic/channel/{channelId}/typing when a user starts or stops typing
+ */
+public record TypingEventDTO(
+    UUID channelId,
+    UUID userId,
+    String username,
+    boolean typing
+) {
+    
+}
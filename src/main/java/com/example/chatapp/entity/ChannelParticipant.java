@@ -0,0 +1,40 @@
+package com.example.chatapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A participant of a server-less (DM) channel; DM channels are not backed by memberships
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "channel_participants", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"channel_id", "user_id"})
+}, indexes = @Index(name = "idx_channel_participants_user_id", columnList = "user_id"))
+public class ChannelParticipant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "channel_id", nullable = false)
+    private Channel channel;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    private LocalDateTime joinedAt;
+
+    @PrePersist
+    protected void onJoin() {
+        joinedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chatapp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A direct message waiting for a recipient that had no open WebSocket session.
+ * Rows are removed when the client acknowledges them or when they expire.
+ */
+@Data
+@Entity
+@Table(name = "offline_messages",
+       uniqueConstraints = @UniqueConstraint(name = "uk_offline_messages_recipient_message",
+                                             columnNames = {"recipient_id", "message_id"}),
+       indexes = @Index(name = "idx_offline_messages_recipient_id", columnList = "recipient_id, enqueued_at, id"))
+public class OfflineMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "offline_messages_seq")
+    @SequenceGenerator(name = "offline_messages_seq", sequenceName = "offline_messages_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private UUID recipientId;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,91 @@
+package com.example.chatapp.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes notifications with plain JDBC batch inserts, bypassing the persistence context.
+ * Rows are written in chunks of chat.notifications.batch-size, each chunk in its own short
+ * transaction, so an @everyone in a large server never holds one huge transaction open
+ * and a failing chunk does not lose the ones already written.
+ */
+@Slf4j
+@Component
+public class NotificationWriter {
+    
+    private static final String INSERT =
+            "insert into notifications (id, recipient_user_id, sender_user_id, type, message_id, channel_id, server_id, is_read, created_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, false, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    
+    private final Counter created;
+    private final Counter failed;
+    private final Timer chunkTimer;
+    
+    public NotificationWriter(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.notifications.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        
+        this.created = Counter.builder("chat.notifications.created")
+                .description("Notification rows written")
+                .register(meterRegistry);
+        this.failed = Counter.builder("chat.notifications.failed")
+                .description("Notification rows dropped because their chunk failed to write")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("chat.notifications.write")
+                .description("Time to write one chunk of notifications")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Write the notifications, returning how many were stored
+     */
+    public int write(List<PendingNotification> notifications) {
+        int written = 0;
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            List<PendingNotification> chunk = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+            try {
+                chunkTimer.record(() -> transactionTemplate.executeWithoutResult(status -> insert(chunk)));
+                written += chunk.size();
+                created.increment(chunk.size());
+            } catch (RuntimeException e) {
+                // Typically a recipient deleted since it was resolved; the remaining chunks are still written
+                failed.increment(chunk.size());
+                log.warn("Failed to write {} notifications", chunk.size(), e);
+            }
+        }
+        return written;
+    }
+    
+    private void insert(List<PendingNotification> chunk) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, chunk, chunk.size(), (ps, notification) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, notification.recipientId());
+            ps.setObject(3, notification.senderId());
+            ps.setString(4, notification.type().name());
+            ps.setObject(5, notification.messageId());
+            ps.setObject(6, notification.channelId());
+            ps.setObject(7, notification.serverId());
+            ps.setTimestamp(8, now);
+        });
+    }
+}
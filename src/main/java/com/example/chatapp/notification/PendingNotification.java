@@ -0,0 +1,17 @@
+package com.example.chatapp.notification;
+
+import com.example.chatapp.enums.NotificationType;
+
+import java.util.UUID;
+
+/**
+ * A notification row waiting to be written; ids only, so it can outlive the message's persistence context
+ */
+public record PendingNotification(
+    UUID recipientId,
+    UUID senderId,
+    NotificationType type,
+    Long messageId,
+    UUID channelId,
+    UUID serverId
+) {}
@@ -1,5 +1,6 @@
 package com.example.chatapp.pattern.command;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.Server;
 import com.example.chatapp.entity.User;
@@ -18,6 +19,7 @@ public class BanUserCommand implements Command {
     private final User targetUser;
     private final Server server;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     
     private Membership removedMembership;
     
@@ -29,6 +31,7 @@ public class BanUserCommand implements Command {
         
         if (removedMembership != null) {
             membershipRepository.delete(removedMembership);
+            membershipCache.evictMembership(targetUser.getId(), server.getId());
             // In a real implementation, you'd also add to a ban list
             log.info("User {} banned from server {}", targetUser.getId(), server.getId());
         }
@@ -38,6 +41,7 @@ public class BanUserCommand implements Command {
     public void undo() {
         if (removedMembership != null) {
             membershipRepository.save(removedMembership);
+            membershipCache.evictMembership(targetUser.getId(), server.getId());
             // Remove from ban list
             log.info("Ban lifted for user {} in server {}", targetUser.getId(), server.getId());
         }
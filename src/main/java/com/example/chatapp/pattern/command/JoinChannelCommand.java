@@ -1,5 +1,6 @@
 package com.example.chatapp.pattern.command;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Channel;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.User;
@@ -17,6 +18,7 @@ public class JoinChannelCommand implements Command {
     private final User user;
     private final Channel channel;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     
     private Membership createdMembership;
     
@@ -29,6 +31,7 @@ public class JoinChannelCommand implements Command {
         membership.setJoinedAt(java.time.LocalDateTime.now());
         
         createdMembership = membershipRepository.save(membership);
+        membershipCache.evictMembership(user.getId(), channel.getServer().getId());
         log.info("User {} joined channel {}", user.getId(), channel.getId());
     }
     
@@ -36,6 +39,7 @@ public class JoinChannelCommand implements Command {
     public void undo() {
         if (createdMembership != null) {
             membershipRepository.delete(createdMembership);
+            membershipCache.evictMembership(user.getId(), channel.getServer().getId());
             log.info("User {} left channel {}", user.getId(), channel.getId());
         }
     }
@@ -1,5 +1,6 @@
 package com.example.chatapp.pattern.command;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.Server;
 import com.example.chatapp.entity.User;
@@ -19,6 +20,7 @@ public class KickUserCommand implements Command {
     private final User targetUser;
     private final Server server;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     
     private Membership removedMembership;
     
@@ -30,6 +32,7 @@ public class KickUserCommand implements Command {
         
         if (removedMembership != null) {
             membershipRepository.delete(removedMembership);
+            membershipCache.evictMembership(targetUser.getId(), server.getId());
             log.info("User {} kicked from server {}", targetUser.getId(), server.getId());
         }
     }
@@ -38,6 +41,7 @@ public class KickUserCommand implements Command {
     public void undo() {
         if (removedMembership != null) {
             membershipRepository.save(removedMembership);
+            membershipCache.evictMembership(targetUser.getId(), server.getId());
             log.info("Kick undone for user {} in server {}", targetUser.getId(), server.getId());
         }
     }
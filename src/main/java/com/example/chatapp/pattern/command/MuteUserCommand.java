@@ -1,5 +1,6 @@
 package com.example.chatapp.pattern.command;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.User;
 import com.example.chatapp.repository.MembershipRepository;
@@ -18,21 +19,26 @@ public class MuteUserCommand implements Command {
     private final User targetUser;
     private final Membership membership;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     private final int durationMinutes;
     
     private boolean wasMuted;
+    private LocalDateTime previousMutedUntil;
     
     @Override
     public void execute() {
         // Store previous state
         String settings = membership.getSettings();
         wasMuted = settings != null && settings.contains("\"muted\":true");
+        previousMutedUntil = membership.getMutedUntil();
         
         // Set mute with expiration
         LocalDateTime muteUntil = LocalDateTime.now().plusMinutes(durationMinutes);
         String newSettings = String.format("{\"muted\":true,\"muteUntil\":\"%s\"}", muteUntil);
         membership.setSettings(newSettings);
+        membership.setMutedUntil(muteUntil);
         membershipRepository.save(membership);
+        evictCachedMembership();
         
         log.info("User {} muted for {} minutes", targetUser.getId(), durationMinutes);
     }
@@ -41,11 +47,17 @@ public class MuteUserCommand implements Command {
     public void undo() {
         if (!wasMuted) {
             membership.setSettings("{\"muted\":false}");
+            membership.setMutedUntil(previousMutedUntil);
             membershipRepository.save(membership);
+            evictCachedMembership();
             log.info("Mute removed for user {}", targetUser.getId());
         }
     }
     
+    private void evictCachedMembership() {
+        membershipCache.evictMembership(targetUser.getId(), membership.getServer().getId());
+    }
+    
     @Override
     public String getCommandName() {
         return "MUTE";
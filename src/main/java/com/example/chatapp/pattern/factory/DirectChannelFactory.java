@@ -0,0 +1,28 @@
+package com.example.chatapp.pattern.factory;
+
+import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.Server;
+import com.example.chatapp.enums.ChannelType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Factory for creating direct message channels; they belong to no server
+ */
+@Component
+public class DirectChannelFactory implements ChannelFactory {
+    
+    @Override
+    public Channel createChannel(String name, Server server, String settings) {
+        Channel channel = new Channel();
+        channel.setName(name);
+        channel.setServer(null);
+        channel.setType(ChannelType.DM);
+        channel.setSettings(settings != null ? settings : "{}");
+        return channel;
+    }
+    
+    @Override
+    public ChannelType getChannelType() {
+        return ChannelType.DM;
+    }
+}
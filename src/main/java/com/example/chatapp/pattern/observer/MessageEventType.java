@@ -0,0 +1,10 @@
+package com.example.chatapp.pattern.observer;
+
+/**
+ * Kinds of message events an observer can subscribe to
+ */
+public enum MessageEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
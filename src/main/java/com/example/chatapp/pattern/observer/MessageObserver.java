@@ -2,6 +2,10 @@ package com.example.chatapp.pattern.observer;
 
 import com.example.chatapp.entity.Message;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Observer interface for message-related events
  * Part of Observer Pattern implementation
@@ -10,4 +14,25 @@ public interface MessageObserver {
     void onMessageCreated(Message message);
     void onMessageUpdated(Message message);
     void onMessageDeleted(Long messageId);
+    
+    /**
+     * Called once for a batch of created messages; override to handle the batch in one go
+     */
+    default void onMessagesCreated(List<Message> messages) {
+        messages.forEach(this::onMessageCreated);
+    }
+    
+    /**
+     * Events this observer wants to receive; it is not invoked for the others
+     */
+    default Set<MessageEventType> getSubscribedEvents() {
+        return EnumSet.allOf(MessageEventType.class);
+    }
+    
+    /**
+     * What to do when this observer falls behind; null uses chat.observers.overflow-policy
+     */
+    default ObserverDispatcher.OverflowPolicy getOverflowPolicy() {
+        return null;
+    }
 }
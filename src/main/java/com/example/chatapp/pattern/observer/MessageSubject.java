@@ -1,43 +1,168 @@
 package com.example.chatapp.pattern.observer;
 
 import com.example.chatapp.entity.Message;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Subject (Observable) for message events
- * Manages observers and notifies them of message changes
+ * Manages observers and notifies them of message changes.
+ * Events raised inside a transaction are published only after it commits,
+ * and each observer consumes them asynchronously through its own ObserverDispatcher,
+ * keyed by channel so that the events of a channel stay in order.
+ *
+ * Observers are kept in an immutable per-event snapshot that is swapped with a CAS
+ * on attach/detach, so publishing never locks and observers (plugins, audit sinks)
+ * can be registered at runtime while messages are flowing.
  */
+@Slf4j
 @Component
 public class MessageSubject {
     
-    private final List<MessageObserver> observers = new ArrayList<>();
+    private static final ObserverDispatcher[] NONE = new ObserverDispatcher[0];
+    
+    private final AtomicReference<Map<MessageEventType, ObserverDispatcher[]>> registry =
+            new AtomicReference<>(emptyRegistry());
+    
+    private final MeterRegistry meterRegistry;
+    private final int workers;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+    private final ObserverDispatcher.OverflowPolicy overflowPolicy;
+    
+    public MessageSubject(MeterRegistry meterRegistry,
+                          @Value("${chat.observers.workers:2}") int workers,
+                          @Value("${chat.observers.queue-capacity:10000}") int queueCapacity,
+                          @Value("${chat.observers.virtual-threads:false}") boolean virtualThreads,
+                          @Value("${chat.observers.overflow-policy:DROP_OLDEST}") ObserverDispatcher.OverflowPolicy overflowPolicy) {
+        this.meterRegistry = meterRegistry;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.virtualThreads = virtualThreads;
+        this.overflowPolicy = overflowPolicy;
+    }
     
     public void attach(MessageObserver observer) {
-        observers.add(observer);
+        attach(observer, observer.getSubscribedEvents());
+    }
+    
+    /**
+     * Register an observer for the given events only
+     */
+    public void attach(MessageObserver observer, Set<MessageEventType> events) {
+        ObserverDispatcher.OverflowPolicy policy = observer.getOverflowPolicy() != null
+                ? observer.getOverflowPolicy()
+                : overflowPolicy;
+        ObserverDispatcher dispatcher = new ObserverDispatcher(observer, workers, queueCapacity, virtualThreads, policy, meterRegistry);
+        registry.updateAndGet(current -> {
+            Map<MessageEventType, ObserverDispatcher[]> next = new EnumMap<>(current);
+            for (MessageEventType event : events) {
+                ObserverDispatcher[] existing = next.get(event);
+                ObserverDispatcher[] grown = Arrays.copyOf(existing, existing.length + 1);
+                grown[existing.length] = dispatcher;
+                next.put(event, grown);
+            }
+            return next;
+        });
+        log.info("Observer {} attached for {}", observer.getClass().getSimpleName(), events);
     }
     
     public void detach(MessageObserver observer) {
-        observers.remove(observer);
+        Set<ObserverDispatcher> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        registry.updateAndGet(current -> {
+            removed.clear();
+            Map<MessageEventType, ObserverDispatcher[]> next = new EnumMap<>(current);
+            next.replaceAll((event, dispatchers) -> Arrays.stream(dispatchers)
+                    .filter(dispatcher -> {
+                        if (dispatcher.getObserver() == observer) {
+                            removed.add(dispatcher);
+                            return false;
+                        }
+                        return true;
+                    })
+                    .toArray(ObserverDispatcher[]::new));
+            return next;
+        });
+        removed.forEach(ObserverDispatcher::shutdown);
     }
     
     public void notifyMessageCreated(Message message) {
-        for (MessageObserver observer : observers) {
-            observer.onMessageCreated(message);
-        }
+        publish(MessageEventType.CREATED, message.getChannel().getId(), observer -> observer.onMessageCreated(message));
+    }
+    
+    /**
+     * Publish a batch as a single event per observer and channel
+     */
+    public void notifyMessagesCreated(List<Message> messages) {
+        Map<UUID, List<Message>> byChannel = messages.stream()
+                .collect(Collectors.groupingBy(message -> message.getChannel().getId(), LinkedHashMap::new, Collectors.toList()));
+        byChannel.forEach((channelId, batch) ->
+                publish(MessageEventType.CREATED, channelId, observer -> observer.onMessagesCreated(List.copyOf(batch))));
     }
     
     public void notifyMessageUpdated(Message message) {
-        for (MessageObserver observer : observers) {
-            observer.onMessageUpdated(message);
+        publish(MessageEventType.UPDATED, message.getChannel().getId(), observer -> observer.onMessageUpdated(message));
+    }
+    
+    public void notifyMessageDeleted(UUID channelId, Long messageId) {
+        publish(MessageEventType.DELETED, channelId, observer -> observer.onMessageDeleted(messageId));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        registry.get().values().stream()
+                .flatMap(Arrays::stream)
+                .distinct()
+                .forEach(ObserverDispatcher::shutdown);
+    }
+    
+    private void publish(MessageEventType type, UUID channelId, Consumer<MessageObserver> event) {
+        if (registry.get().get(type).length == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Observers must never see a message that is later rolled back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut(type, channelId, event);
+                }
+            });
+        } else {
+            fanOut(type, channelId, event);
+        }
+    }
+    
+    private void fanOut(MessageEventType type, UUID channelId, Consumer<MessageObserver> event) {
+        // Snapshot read once; concurrent attach/detach only affect later events
+        for (ObserverDispatcher dispatcher : registry.get().get(type)) {
+            dispatcher.dispatch(channelId, event);
         }
     }
     
-    public void notifyMessageDeleted(Long messageId) {
-        for (MessageObserver observer : observers) {
-            observer.onMessageDeleted(messageId);
+    private static Map<MessageEventType, ObserverDispatcher[]> emptyRegistry() {
+        Map<MessageEventType, ObserverDispatcher[]> empty = new EnumMap<>(MessageEventType.class);
+        for (MessageEventType type : MessageEventType.values()) {
+            empty.put(type, NONE);
         }
+        return empty;
     }
 }
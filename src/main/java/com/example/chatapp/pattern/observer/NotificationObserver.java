@@ -1,29 +1,73 @@
 package com.example.chatapp.pattern.observer;
 
-import com.example.chatapp.entity.Channel;
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Message;
-import com.example.chatapp.entity.Notification;
-import com.example.chatapp.entity.User;
 import com.example.chatapp.enums.NotificationType;
-import com.example.chatapp.repository.NotificationRepository;
+import com.example.chatapp.notification.NotificationWriter;
+import com.example.chatapp.notification.PendingNotification;
+import com.example.chatapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Concrete Observer that creates notifications when messages are created
+ * Concrete Observer that creates notifications when messages are created.
+ * Runs on its own dispatcher threads after the message commits, so resolving recipients
+ * and writing rows never delays the send. In server channels only @username and @everyone
+ * notify; in DM channels every participant is notified of every message.
  */
 @Component
 @RequiredArgsConstructor
 public class NotificationObserver implements MessageObserver {
     
-    private final NotificationRepository notificationRepository;
+    static final String EVERYONE = "everyone";
+    
+    // Not preceded by a word character, so e-mail addresses are not mentions; trailing punctuation is dropped
+    private static final Pattern MENTION = Pattern.compile("(?<![\\w@])@([A-Za-z0-9_](?:[A-Za-z0-9_.-]*[A-Za-z0-9_])?)");
+    private static final int MAX_MENTIONS = 50;
+    
+    private final MembershipCache membershipCache;
+    private final UserRepository userRepository;
+    private final NotificationWriter notificationWriter;
+    
+    @Override
+    public Set<MessageEventType> getSubscribedEvents() {
+        return EnumSet.of(MessageEventType.CREATED);
+    }
+    
+    /**
+     * Notifications must not be lost when the queue is full; the sender waits for room instead
+     */
+    @Override
+    public ObserverDispatcher.OverflowPolicy getOverflowPolicy() {
+        return ObserverDispatcher.OverflowPolicy.BLOCK;
+    }
     
     @Override
     public void onMessageCreated(Message message) {
-        // Create notifications for mentioned users or channel subscribers
-        createNotificationsForMessage(message);
+        notificationWriter.write(createNotificationsForMessage(message));
+    }
+    
+    /**
+     * Resolve the whole batch first so its notifications go out in as few JDBC batches as possible
+     */
+    @Override
+    public void onMessagesCreated(List<Message> messages) {
+        List<PendingNotification> notifications = new ArrayList<>();
+        messages.forEach(message -> notifications.addAll(createNotificationsForMessage(message)));
+        notificationWriter.write(notifications);
     }
     
     @Override
@@ -36,26 +80,58 @@ public class NotificationObserver implements MessageObserver {
         // Optionally clean up notifications
     }
     
-    private void createNotificationsForMessage(Message message) {
-        Channel channel = message.getChannel();
-        User author = message.getAuthor();
-        String content = message.getContext();
-        
-        // Check for mentions in the message content
-        if (content != null && content.contains("@")) {
-            // Extract mentioned users and create notifications
-            // This is a simplified version - you'd want more sophisticated mention parsing
+    private List<PendingNotification> createNotificationsForMessage(Message message) {
+        // Only ids are read from the message: it is detached by the time observers see it
+        UUID channelId = message.getChannel().getId();
+        UUID authorId = message.getAuthor().getId();
+        Optional<ChannelRoute> route = membershipCache.getChannelRoute(channelId);
+        if (route.isEmpty()) {
+            return List.of();
         }
+        UUID serverId = route.get().serverId();
+        
+        Set<String> usernames = mentionedUsernames(message.getContext());
+        boolean everyone = usernames.remove(EVERYONE);
         
-        // Create notification for channel members (simplified)
-        Notification notification = new Notification();
-        notification.setType(NotificationType.MESSAGE);
-        notification.setMessage(message);
-        notification.setChannel(channel);
-        notification.setSender(author);
-        notification.setRead(false);
+        Map<UUID, NotificationType> recipients = new LinkedHashMap<>();
+        Set<UUID> members;
+        if (serverId == null) {
+            // DM channels are not backed by server memberships but by their participant list
+            membershipCache.getChannelParticipants(channelId)
+                    .forEach(participant -> recipients.put(participant, NotificationType.MESSAGE));
+            members = Set.copyOf(recipients.keySet());
+        } else {
+            members = membershipCache.getServerMemberIds(serverId);
+            if (everyone) {
+                members.forEach(member -> recipients.put(member, NotificationType.MENTION));
+            }
+        }
+        if (!usernames.isEmpty()) {
+            // Mentions of people who cannot see the channel are ignored
+            userRepository.findIdsByUsernameIn(usernames).stream()
+                    .filter(members::contains)
+                    .forEach(mentioned -> recipients.put(mentioned, NotificationType.MENTION));
+        }
+        recipients.remove(authorId);
         
-        // Note: You'd set the recipient based on channel membership
-        // This would require querying channel members
+        List<PendingNotification> notifications = new ArrayList<>(recipients.size());
+        recipients.forEach((recipient, type) -> notifications.add(
+                new PendingNotification(recipient, authorId, type, message.getId(), channelId, serverId)));
+        return notifications;
+    }
+    
+    /**
+     * Distinct usernames mentioned in the content, at most MAX_MENTIONS of them; "everyone" stands for @everyone
+     */
+    static Set<String> mentionedUsernames(String content) {
+        Set<String> usernames = new LinkedHashSet<>();
+        if (content == null || content.indexOf('@') < 0) {
+            return usernames;
+        }
+        Matcher matcher = MENTION.matcher(content);
+        while (matcher.find() && usernames.size() < MAX_MENTIONS) {
+            usernames.add(matcher.group(1));
+        }
+        return usernames;
     }
 }
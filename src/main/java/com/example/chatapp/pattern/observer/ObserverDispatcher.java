@@ -0,0 +1,162 @@
+package com.example.chatapp.pattern.observer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the callbacks of a single observer on its own bounded queues and workers,
+ * so a slow observer neither blocks the publisher nor delays the other observers.
+ * Each worker is a single thread with its own queue (a shard) and every event is routed by key
+ * (the channel id), so the events of one channel reach the observer in publish order,
+ * e.g. an edit is never handled before the create it applies to.
+ */
+@Slf4j
+public class ObserverDispatcher {
+    
+    /**
+     * What to do when the observer's queue is full
+     */
+    public enum OverflowPolicy {
+        /** Discard the event being published */
+        DROP_NEWEST,
+        /** Discard the oldest queued event to make room */
+        DROP_OLDEST,
+        /** Run the event on the publishing thread, slowing the publisher down; may overtake queued events of its key */
+        CALLER_RUNS,
+        /** Make the publisher wait for room in the queue; nothing is lost and order is kept */
+        BLOCK
+    }
+    
+    @Getter
+    private final MessageObserver observer;
+    private final String name;
+    private final OverflowPolicy overflowPolicy;
+    private final ThreadPoolExecutor[] shards;
+    
+    private final Counter droppedCounter;
+    private final Timer lagTimer;
+    private final Timer processingTimer;
+    
+    public ObserverDispatcher(MessageObserver observer, int workers, int queueCapacity,
+                              boolean virtualThreads, OverflowPolicy overflowPolicy,
+                              MeterRegistry meterRegistry) {
+        this.observer = observer;
+        this.name = observer.getClass().getSimpleName();
+        this.overflowPolicy = overflowPolicy;
+        ThreadFactory threadFactory = threadFactory(name, virtualThreads);
+        int shardCapacity = Math.max(1, queueCapacity / Math.max(1, workers));
+        this.shards = new ThreadPoolExecutor[Math.max(1, workers)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(shardCapacity), threadFactory, this::onRejected);
+        }
+        
+        Gauge.builder("chat.observer.queue.depth", this, ObserverDispatcher::getQueueDepth)
+                .tag("observer", name)
+                .description("Events waiting to be delivered to the observer")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("chat.observer.events.dropped")
+                .tag("observer", name)
+                .description("Events discarded because the observer queue was full")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("chat.observer.lag")
+                .tag("observer", name)
+                .description("Time between publishing an event and the observer starting on it")
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("chat.observer.processing")
+                .tag("observer", name)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Queue an event for the observer behind the earlier events of the same key;
+     * never blocks unless the policy is CALLER_RUNS or BLOCK
+     */
+    public void dispatch(Object key, Consumer<MessageObserver> event) {
+        long publishedAt = System.nanoTime();
+        shards[Math.floorMod(Objects.hashCode(key), shards.length)].execute(() -> {
+            lagTimer.record(System.nanoTime() - publishedAt, TimeUnit.NANOSECONDS);
+            processingTimer.record(() -> {
+                try {
+                    event.accept(observer);
+                } catch (RuntimeException e) {
+                    log.error("Observer {} failed to handle event", name, e);
+                }
+            });
+        });
+    }
+    
+    public int getQueueDepth() {
+        return Arrays.stream(shards).mapToInt(shard -> shard.getQueue().size()).sum();
+    }
+    
+    public void shutdown() {
+        Arrays.stream(shards).forEach(ThreadPoolExecutor::shutdown);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (ThreadPoolExecutor shard : shards) {
+                if (!shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    log.warn("Observer {} did not drain in time, {} events discarded", name, shard.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Arrays.stream(shards).forEach(ThreadPoolExecutor::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void onRejected(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            droppedCounter.increment();
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> task.run();
+            case BLOCK -> {
+                try {
+                    pool.getQueue().put(task);
+                } catch (InterruptedException e) {
+                    droppedCounter.increment();
+                    Thread.currentThread().interrupt();
+                    log.warn("Observer {} event dropped, interrupted while waiting for queue room", name);
+                }
+            }
+            case DROP_OLDEST -> {
+                pool.getQueue().poll();
+                droppedCounter.increment();
+                if (!pool.getQueue().offer(task)) {
+                    droppedCounter.increment();
+                }
+            }
+            default -> droppedCounter.increment();
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST || overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+            log.warn("Observer {} queue full, event dropped ({})", name, overflowPolicy);
+        }
+    }
+    
+    private static ThreadFactory threadFactory(String name, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("observer-" + name + "-", 0).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "observer-" + name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
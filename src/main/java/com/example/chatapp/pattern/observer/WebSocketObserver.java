@@ -1,9 +1,9 @@
 package com.example.chatapp.pattern.observer;
 
+import com.example.chatapp.broadcast.MessageBroadcaster;
 import com.example.chatapp.entity.Message;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 /**
@@ -14,19 +14,29 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class WebSocketObserver implements MessageObserver {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageBroadcaster broadcaster;
+    
+    /**
+     * Seqs are assigned when the frame is published, so an event dropped here would leave no gap
+     * for clients to detect and resume; the sender waits for room instead
+     */
+    @Override
+    public ObserverDispatcher.OverflowPolicy getOverflowPolicy() {
+        return ObserverDispatcher.OverflowPolicy.BLOCK;
+    }
     
     @Override
     public void onMessageCreated(Message message) {
-        String destination = "/topic/channel/" + message.getChannel().getId();
-        messagingTemplate.convertAndSend(destination, message);
+        // The only publisher of the channel topic; runs after the message commits
+        String destination = MessageBroadcaster.channelTopic(message.getChannel().getId());
+        broadcaster.broadcast(message, MessageEventType.CREATED, destination);
         log.info("Message broadcast to channel: {}", message.getChannel().getId());
     }
     
     @Override
     public void onMessageUpdated(Message message) {
-        String destination = "/topic/channel/" + message.getChannel().getId() + "/updates";
-        messagingTemplate.convertAndSend(destination, message);
+        String destination = MessageBroadcaster.channelTopic(message.getChannel().getId()) + "/updates";
+        broadcaster.broadcast(message, MessageEventType.UPDATED, destination);
         log.info("Message update broadcast to channel: {}", message.getChannel().getId());
     }
     
@@ -0,0 +1,49 @@
+package com.example.chatapp.pattern.singleton;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Storage backend behind WebSocketConnectionManager.
+ * A user may hold any number of STOMP sessions, possibly on different app nodes.
+ * Pick the implementation with chat.websocket.registry (memory | jdbc).
+ */
+public interface ConnectionRegistry {
+    
+    /**
+     * Record a session for a user. Registering the same session twice is a no-op.
+     */
+    void register(UUID userId, String sessionId);
+    
+    /**
+     * Forget a session on this node.
+     * @return the user that owned it, or null if the session was unknown
+     */
+    UUID unregister(String sessionId);
+    
+    /**
+     * Sessions this node holds for the user
+     */
+    Set<String> getLocalSessionIds(UUID userId);
+    
+    /**
+     * True if the user has at least one session on any node
+     */
+    boolean isConnected(UUID userId);
+    
+    /**
+     * The subset of the given users that has at least one session on any node
+     */
+    Set<UUID> filterConnected(Collection<UUID> userIds);
+    
+    /**
+     * All users with at least one session on any node
+     */
+    Set<UUID> getConnectedUserIds();
+    
+    /**
+     * Number of sessions across all nodes
+     */
+    int getSessionCount();
+}
@@ -0,0 +1,78 @@
+package com.example.chatapp.pattern.singleton;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node registry (default). State lives in this JVM only.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.websocket.registry", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConnectionRegistry implements ConnectionRegistry {
+    
+    private final Map<String, UUID> sessionToUser = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> userToSessions = new ConcurrentHashMap<>();
+    
+    @Override
+    public void register(UUID userId, String sessionId) {
+        sessionToUser.put(sessionId, userId);
+        // Add inside compute so a concurrent unregister of the last session cannot drop the set under us
+        userToSessions.compute(userId, (id, sessions) -> {
+            Set<String> updated = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            updated.add(sessionId);
+            return updated;
+        });
+    }
+    
+    @Override
+    public UUID unregister(String sessionId) {
+        UUID userId = sessionToUser.remove(sessionId);
+        if (userId != null) {
+            // Drop the user entry atomically once the last session is gone
+            userToSessions.computeIfPresent(userId, (id, sessions) -> {
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+        return userId;
+    }
+    
+    @Override
+    public Set<String> getLocalSessionIds(UUID userId) {
+        Set<String> sessions = userToSessions.get(userId);
+        return sessions != null ? Set.copyOf(sessions) : Set.of();
+    }
+    
+    @Override
+    public boolean isConnected(UUID userId) {
+        return userToSessions.containsKey(userId);
+    }
+    
+    @Override
+    public Set<UUID> filterConnected(Collection<UUID> userIds) {
+        Set<UUID> connected = new HashSet<>();
+        for (UUID userId : userIds) {
+            if (userToSessions.containsKey(userId)) {
+                connected.add(userId);
+            }
+        }
+        return connected;
+    }
+    
+    @Override
+    public Set<UUID> getConnectedUserIds() {
+        return Set.copyOf(userToSessions.keySet());
+    }
+    
+    @Override
+    public int getSessionCount() {
+        return sessionToUser.size();
+    }
+}
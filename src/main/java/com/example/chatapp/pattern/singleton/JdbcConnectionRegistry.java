@@ -0,0 +1,185 @@
+package com.example.chatapp.pattern.singleton;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Multi-node registry backed by a shared ws_sessions table.
+ * Every node writes its own rows (keyed by node id + session id, since session ids
+ * are only unique per node) and reads everyone's, so online checks see users
+ * connected to any node.
+ * Every node also refreshes its row in ws_nodes every chat.node-heartbeat-ms.
+ * Sessions of a node whose heartbeat is older than chat.node-timeout are
+ * ignored by every read at once and deleted by the next heartbeat of any live node, so users
+ * of a crashed node (whose HOSTNAME-based id never comes back) do not stay online for good.
+ * A node that was expired by mistake (e.g. a long GC pause) re-registers its own sessions.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "chat.websocket.registry", havingValue = "jdbc")
+public class JdbcConnectionRegistry implements ConnectionRegistry {
+    
+    // Only sessions of nodes that sent a heartbeat since the cutoff (first parameter) count
+    private static final String LIVE_NODE = "JOIN ws_nodes n ON n.node_id = s.node_id AND n.heartbeat_at >= ? ";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final String nodeId;
+    private final Duration nodeTimeout;
+    
+    // This node's sessions (sessionId -> userId), to restore its rows after being expired
+    private final Map<String, UUID> localSessions = new ConcurrentHashMap<>();
+    
+    public JdbcConnectionRegistry(JdbcTemplate jdbcTemplate,
+                                  @Value("${chat.node-id:${HOSTNAME:local}}") String nodeId,
+                                  @Value("${chat.node-timeout:PT30S}") Duration nodeTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.nodeId = nodeId;
+        this.nodeTimeout = nodeTimeout;
+    }
+    
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ws_sessions (" +
+                "node_id VARCHAR(100) NOT NULL, " +
+                "session_id VARCHAR(100) NOT NULL, " +
+                "user_id UUID NOT NULL, " +
+                "connected_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (node_id, session_id))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_ws_sessions_user ON ws_sessions (user_id)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ws_nodes (" +
+                "node_id VARCHAR(100) PRIMARY KEY, " +
+                "heartbeat_at TIMESTAMP NOT NULL)");
+        
+        int stale = clearNode();
+        heartbeat();
+        log.info("Shared connection registry ready on node {} ({} stale sessions removed)", nodeId, stale);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        clearNode();
+        jdbcTemplate.update("DELETE FROM ws_nodes WHERE node_id = ?", nodeId);
+    }
+    
+    /**
+     * Mark this node alive and delete the sessions of nodes that stopped doing so
+     */
+    @Scheduled(fixedDelayString = "${chat.node-heartbeat-ms:10000}")
+    public void heartbeat() {
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = jdbcTemplate.update("UPDATE ws_nodes SET heartbeat_at = ? WHERE node_id = ?", now, nodeId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO ws_nodes (node_id, heartbeat_at) VALUES (?, ?)", nodeId, now);
+            if (!localSessions.isEmpty()) {
+                log.warn("Node {} was expired by another node, restoring {} sessions", nodeId, localSessions.size());
+                localSessions.forEach((sessionId, userId) -> register(userId, sessionId));
+            }
+        }
+        
+        Timestamp cutoff = cutoff();
+        int nodes = jdbcTemplate.update("DELETE FROM ws_nodes WHERE heartbeat_at < ?", cutoff);
+        if (nodes > 0) {
+            int sessions = jdbcTemplate.update("DELETE FROM ws_sessions WHERE NOT EXISTS (" +
+                    "SELECT 1 FROM ws_nodes n WHERE n.node_id = ws_sessions.node_id)");
+            log.info("Expired {} dead node(s) and {} of their sessions", nodes, sessions);
+        }
+    }
+    
+    @Override
+    public void register(UUID userId, String sessionId) {
+        localSessions.put(sessionId, userId);
+        int updated = jdbcTemplate.update(
+                "UPDATE ws_sessions SET user_id = ? WHERE node_id = ? AND session_id = ?",
+                userId, nodeId, sessionId);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO ws_sessions (node_id, session_id, user_id) VALUES (?, ?, ?)",
+                    nodeId, sessionId, userId);
+        }
+    }
+    
+    @Override
+    public UUID unregister(String sessionId) {
+        localSessions.remove(sessionId);
+        List<UUID> owners = jdbcTemplate.queryForList(
+                "SELECT user_id FROM ws_sessions WHERE node_id = ? AND session_id = ?",
+                UUID.class, nodeId, sessionId);
+        if (owners.isEmpty()) {
+            return null;
+        }
+        
+        jdbcTemplate.update("DELETE FROM ws_sessions WHERE node_id = ? AND session_id = ?", nodeId, sessionId);
+        return owners.get(0);
+    }
+    
+    @Override
+    public Set<String> getLocalSessionIds(UUID userId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT session_id FROM ws_sessions WHERE node_id = ? AND user_id = ?",
+                String.class, nodeId, userId));
+    }
+    
+    @Override
+    public boolean isConnected(UUID userId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT 1 FROM ws_sessions s " + LIVE_NODE + "WHERE s.user_id = ? LIMIT 1",
+                Integer.class, cutoff(), userId).isEmpty();
+    }
+    
+    @Override
+    public Set<UUID> filterConnected(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        
+        // One round trip for the whole member list instead of one per user
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT DISTINCT s.user_id FROM ws_sessions s " +
+                "JOIN ws_nodes n ON n.node_id = s.node_id AND n.heartbeat_at >= :cutoff " +
+                "WHERE s.user_id IN (:userIds)",
+                new MapSqlParameterSource("userIds", userIds).addValue("cutoff", cutoff()),
+                UUID.class));
+    }
+    
+    @Override
+    public Set<UUID> getConnectedUserIds() {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT s.user_id FROM ws_sessions s " + LIVE_NODE, UUID.class, cutoff()));
+    }
+    
+    @Override
+    public int getSessionCount() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ws_sessions s " + LIVE_NODE, Integer.class, cutoff());
+        return count != null ? count : 0;
+    }
+    
+    private Timestamp cutoff() {
+        return Timestamp.from(Instant.now().minus(nodeTimeout));
+    }
+    
+    private int clearNode() {
+        return jdbcTemplate.update("DELETE FROM ws_sessions WHERE node_id = ?", nodeId);
+    }
+}
@@ -1,74 +1,78 @@
 package com.example.chatapp.pattern.singleton;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Map;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Singleton pattern for managing WebSocket connections
  * Thread-safe implementation using Spring's @Component
+ * Tracks every STOMP session of every user; the state itself lives in a
+ * ConnectionRegistry so it can be shared between app nodes.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class WebSocketConnectionManager {
     
-    // Thread-safe map to store active WebSocket sessions
-    private final Map<UUID, WebSocketSession> activeSessions = new ConcurrentHashMap<>();
-    
-    // Map user ID to their session
-    private final Map<UUID, UUID> userToSession = new ConcurrentHashMap<>();
+    private final ConnectionRegistry registry;
     
     /**
-     * Register a new WebSocket session
+     * Register a STOMP session for a user (one user may have several)
      */
-    public void registerSession(UUID userId, WebSocketSession session) {
-        UUID sessionId = UUID.randomUUID();
-        activeSessions.put(sessionId, session);
-        userToSession.put(userId, sessionId);
-        log.info("WebSocket session registered for user: {}", userId);
+    public void registerSession(UUID userId, String sessionId) {
+        registry.register(userId, sessionId);
+        log.info("WebSocket session {} registered for user: {}", sessionId, userId);
     }
     
     /**
-     * Remove a WebSocket session
+     * Remove a STOMP session
+     * @return the user that owned the session, or null if it was never registered
      */
-    public void removeSession(UUID userId) {
-        UUID sessionId = userToSession.remove(userId);
-        if (sessionId != null) {
-            activeSessions.remove(sessionId);
-            log.info("WebSocket session removed for user: {}", userId);
+    public UUID removeSession(String sessionId) {
+        UUID userId = registry.unregister(sessionId);
+        if (userId != null) {
+            log.info("WebSocket session {} removed for user: {}", sessionId, userId);
         }
+        return userId;
     }
     
     /**
-     * Get session for a specific user
+     * Get the sessions a user holds on this node
      */
-    public WebSocketSession getSession(UUID userId) {
-        UUID sessionId = userToSession.get(userId);
-        return sessionId != null ? activeSessions.get(sessionId) : null;
+    public Set<String> getSessionIds(UUID userId) {
+        return registry.getLocalSessionIds(userId);
     }
     
     /**
-     * Check if user is connected
+     * Check if user is connected on any node
      */
     public boolean isUserConnected(UUID userId) {
-        return userToSession.containsKey(userId);
+        return registry.isConnected(userId);
+    }
+    
+    /**
+     * Get the connected subset of the given users
+     */
+    public Set<UUID> filterConnected(Collection<UUID> userIds) {
+        return registry.filterConnected(userIds);
     }
     
     /**
      * Get total number of active connections
      */
     public int getActiveConnectionCount() {
-        return activeSessions.size();
+        return registry.getSessionCount();
     }
     
     /**
      * Get all active user IDs
      */
-    public java.util.Set<UUID> getActiveUserIds() {
-        return userToSession.keySet();
+    public Set<UUID> getActiveUserIds() {
+        return registry.getConnectedUserIds();
     }
 }
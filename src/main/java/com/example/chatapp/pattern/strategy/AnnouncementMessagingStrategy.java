@@ -1,14 +1,12 @@
 package com.example.chatapp.pattern.strategy;
 
+import com.example.chatapp.broadcast.MessageBroadcaster;
 import com.example.chatapp.entity.Message;
-import com.example.chatapp.entity.User;
+import com.example.chatapp.pattern.observer.MessageEventType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 /**
  * Strategy for sending server-wide announcements
  * All members of the server receive the announcement
@@ -18,17 +16,22 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AnnouncementMessagingStrategy implements MessagingStrategy {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageBroadcaster broadcaster;
     
     @Override
-    public void sendMessage(Message message, List<User> recipients) {
-        // Get server ID from channel's server
-        String serverId = message.getChannel().getServer().getId().toString();
+    public void sendMessage(Message message, Recipients recipients) {
+        // Server ID comes with the resolved recipients, no need to load the channel's server
+        String serverId = recipients.serverId().toString();
         String destination = "/topic/server/" + serverId + "/announcements";
         
-        messagingTemplate.convertAndSend(destination, message);
+        broadcaster.broadcast(message, MessageEventType.CREATED, destination);
         log.info("Announcement sent to server {} with {} recipients", 
-                serverId, recipients.size());
+                serverId, recipients.count());
+    }
+    
+    @Override
+    public RecipientRequirement getRecipientRequirement() {
+        return RecipientRequirement.COUNT;
     }
     
     @Override
@@ -1,8 +1,10 @@
 package com.example.chatapp.pattern.strategy;
 
+import com.example.chatapp.cache.ChannelRoute;
 import com.example.chatapp.entity.Message;
-import com.example.chatapp.entity.User;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
 import java.util.List;
@@ -10,25 +12,52 @@ import java.util.Map;
 
 /**
  * Context class that uses different messaging strategies
- * Selects appropriate strategy based on message type
+ * Selects appropriate strategy based on message type.
+ * Strategies called inside a transaction run only after it commits, so a message that is
+ * rolled back is never delivered or queued.
  */
 @Component
 public class MessagingContext {
     
     private final Map<String, MessagingStrategy> strategies = new HashMap<>();
+    private final RecipientResolver recipientResolver;
     
-    public MessagingContext(List<MessagingStrategy> strategyList) {
+    public MessagingContext(List<MessagingStrategy> strategyList, RecipientResolver recipientResolver) {
+        this.recipientResolver = recipientResolver;
         for (MessagingStrategy strategy : strategyList) {
             strategies.put(strategy.getStrategyType(), strategy);
         }
     }
     
-    public void executeStrategy(String strategyType, Message message, List<User> recipients) {
+    public void executeStrategy(String strategyType, Message message, ChannelRoute route) {
+        executeStrategy(strategyType, List.of(message), route);
+    }
+    
+    /**
+     * Send several messages of the same channel, resolving the recipients only once
+     */
+    public void executeStrategy(String strategyType, List<Message> messages, ChannelRoute route) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(strategyType, messages, route);
+                }
+            });
+        } else {
+            send(strategyType, messages, route);
+        }
+    }
+    
+    private void send(String strategyType, List<Message> messages, ChannelRoute route) {
         MessagingStrategy strategy = strategies.get(strategyType.toUpperCase());
         if (strategy == null) {
             // Default to channel strategy
             strategy = strategies.get("CHANNEL");
         }
-        strategy.sendMessage(message, recipients);
+        Recipients recipients = recipientResolver.resolve(route, strategy.getRecipientRequirement());
+        for (Message message : messages) {
+            strategy.sendMessage(message, recipients);
+        }
     }
 }
@@ -1,38 +1,62 @@
 package com.example.chatapp.pattern.strategy;
 
+import com.example.chatapp.broadcast.MessageBroadcaster;
 import com.example.chatapp.entity.Message;
-import com.example.chatapp.entity.User;
+import com.example.chatapp.pattern.observer.MessageEventType;
 import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import com.example.chatapp.service.OfflineMessageService;
+import com.example.chatapp.service.impl.OfflineMessageServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Strategy for sending private direct messages
  * Only the specific recipient receives the message
+ * Recipients without an open session get it from their offline queue when they reconnect
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PrivateMessagingStrategy implements MessagingStrategy {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageBroadcaster broadcaster;
     private final WebSocketConnectionManager connectionManager;
+    private final OfflineMessageService offlineMessageService;
     
     @Override
-    public void sendMessage(Message message, List<User> recipients) {
-        for (User recipient : recipients) {
-            if (connectionManager.isUserConnected(recipient.getId())) {
-                String destination = "/queue/user/" + recipient.getId();
-                messagingTemplate.convertAndSend(destination, message);
-                log.info("Private message sent to user: {}", recipient.getId());
+    public void sendMessage(Message message, Recipients recipients) {
+        UUID authorId = message.getAuthor().getId();
+        Set<UUID> connected = connectionManager.filterConnected(recipients.userIds());
+        
+        List<String> destinations = new ArrayList<>();
+        List<UUID> offline = new ArrayList<>();
+        for (UUID recipientId : recipients.userIds()) {
+            if (recipientId.equals(authorId)) {
+                continue;
+            }
+            if (connected.contains(recipientId)) {
+                destinations.add(OfflineMessageServiceImpl.userQueue(recipientId));
+                log.info("Private message sent to user: {}", recipientId);
             } else {
-                log.warn("User {} is not connected, message queued", recipient.getId());
+                offline.add(recipientId);
+                log.info("User {} is not connected, message queued", recipientId);
             }
         }
+        
+        // One serialized frame shared by every recipient queue
+        broadcaster.broadcast(message, MessageEventType.CREATED, destinations);
+        offlineMessageService.enqueue(message, offline);
+    }
+    
+    @Override
+    public RecipientRequirement getRecipientRequirement() {
+        return RecipientRequirement.IDS;
     }
     
     @Override
@@ -0,0 +1,14 @@
+package com.example.chatapp.pattern.strategy;
+
+/**
+ * How much recipient information a MessagingStrategy needs;
+ * only that much is resolved before the strategy runs
+ */
+public enum RecipientRequirement {
+    /** Recipients are not used */
+    NONE,
+    /** Only the number of recipients is used */
+    COUNT,
+    /** The individual recipient user ids are used */
+    IDS
+}
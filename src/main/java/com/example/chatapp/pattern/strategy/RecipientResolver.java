@@ -0,0 +1,40 @@
+package com.example.chatapp.pattern.strategy;
+
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resolves the recipients of a channel message from the cached per-server member id sets
+ * (or the cached participants of a DM channel),
+ * doing only the work the strategy declared it needs
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipientResolver {
+    
+    private final MembershipCache membershipCache;
+    
+    public Recipients resolve(ChannelRoute route, RecipientRequirement requirement) {
+        UUID serverId = route.serverId();
+        if (requirement == RecipientRequirement.NONE) {
+            return Recipients.none(serverId);
+        }
+        if (serverId == null) {
+            // DM channels are not backed by server memberships but by their participant list
+            Set<UUID> participantIds = membershipCache.getChannelParticipants(route.channelId());
+            return requirement == RecipientRequirement.COUNT
+                    ? Recipients.counted(null, participantIds.size())
+                    : Recipients.of(null, participantIds);
+        }
+        
+        Set<UUID> memberIds = membershipCache.getServerMemberIds(serverId);
+        return requirement == RecipientRequirement.COUNT
+                ? Recipients.counted(serverId, memberIds.size())
+                : Recipients.of(serverId, memberIds);
+    }
+}
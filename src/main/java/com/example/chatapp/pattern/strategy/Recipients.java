@@ -0,0 +1,27 @@
+package com.example.chatapp.pattern.strategy;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Recipients of a message, resolved only as far as the strategy's RecipientRequirement asks.
+ * {@code count} is -1 and {@code userIds} empty when they were not requested.
+ */
+public record Recipients(
+    UUID serverId,
+    int count,
+    Set<UUID> userIds
+) {
+    
+    public static Recipients none(UUID serverId) {
+        return new Recipients(serverId, -1, Set.of());
+    }
+    
+    public static Recipients counted(UUID serverId, int count) {
+        return new Recipients(serverId, count, Set.of());
+    }
+    
+    public static Recipients of(UUID serverId, Set<UUID> userIds) {
+        return new Recipients(serverId, userIds.size(), userIds);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index serverId -> ids of its members that currently have an open session
+ * and are not OFFLINE, so listing or counting a server's online members costs O(online),
+ * not O(members). Maintained on session open/close (WebSocketEventListener), on automatic
+ * OFFLINE / back ONLINE transitions of connected users (PresenceReaper) and on membership
+ * changes (MembershipCache eviction listener). A periodic reconcile against the connection
+ * registry and the presence store repairs races and, with a shared registry, picks up users
+ * on other nodes.
+ */
+@Slf4j
+@Component
+public class OnlineMemberIndex {
+    
+    private final MembershipCache membershipCache;
+    private final WebSocketConnectionManager connectionManager;
+    private final PresenceStore presenceStore;
+    
+    private final Map<UUID, Set<UUID>> onlineByServer = new ConcurrentHashMap<>();
+    // Online users -> the servers they are indexed under; updated only inside compute for the user
+    private final Map<UUID, Set<UUID>> serversByUser = new ConcurrentHashMap<>();
+    
+    public OnlineMemberIndex(MembershipCache membershipCache,
+                             WebSocketConnectionManager connectionManager,
+                             PresenceStore presenceStore,
+                             MeterRegistry meterRegistry) {
+        this.membershipCache = membershipCache;
+        this.connectionManager = connectionManager;
+        this.presenceStore = presenceStore;
+        membershipCache.addEvictionListener(this::onMembershipChanged);
+        Gauge.builder("chat.presence.index.users", serversByUser, Map::size)
+                .description("Online users in the server -> online members index")
+                .register(meterRegistry);
+    }
+    
+    public void userOnline(UUID userId) {
+        serversByUser.compute(userId, (id, indexed) -> {
+            Set<UUID> servers = indexed != null ? indexed : ConcurrentHashMap.newKeySet();
+            for (UUID serverId : membershipCache.getUserServerIds(userId)) {
+                if (servers.add(serverId)) {
+                    add(serverId, userId);
+                }
+            }
+            return servers;
+        });
+    }
+    
+    public void userOffline(UUID userId) {
+        serversByUser.computeIfPresent(userId, (id, servers) -> {
+            servers.forEach(serverId -> remove(serverId, userId));
+            return null;
+        });
+    }
+    
+    public int countOnline(UUID serverId) {
+        Set<UUID> online = onlineByServer.get(serverId);
+        return online != null ? online.size() : 0;
+    }
+    
+    /**
+     * Copy of the server's online member ids
+     */
+    public Set<UUID> onlineMembers(UUID serverId) {
+        Set<UUID> online = onlineByServer.get(serverId);
+        return online != null ? Set.copyOf(online) : Set.of();
+    }
+    
+    /**
+     * One page of the server's online member ids, in a stable (id) order
+     */
+    public List<UUID> onlinePage(UUID serverId, int page, int size) {
+        Set<UUID> online = onlineByServer.get(serverId);
+        if (online == null) {
+            return List.of();
+        }
+        return online.stream()
+                .sorted()
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.presence.index-reconcile-ms:30000}")
+    public void reconcile() {
+        Set<UUID> connected = connectionManager.getActiveUserIds();
+        for (UUID userId : new HashSet<>(serversByUser.keySet())) {
+            if (!connected.contains(userId) || isOffline(userId)) {
+                userOffline(userId);
+            }
+        }
+        for (UUID userId : connected) {
+            // Connected but silent users are OFFLINE until their next action (see PresenceReaper)
+            if (!serversByUser.containsKey(userId) && !isOffline(userId)) {
+                userOnline(userId);
+            }
+        }
+    }
+    
+    private boolean isOffline(UUID userId) {
+        return presenceStore.get(userId).map(PresenceSnapshot::status).orElse(null) == PresenceStatus.OFFLINE;
+    }
+    
+    private void onMembershipChanged(UUID userId, UUID serverId) {
+        serversByUser.computeIfPresent(userId, (id, servers) -> {
+            if (membershipCache.getMembership(userId, serverId).isPresent()) {
+                if (servers.add(serverId)) {
+                    add(serverId, userId);
+                }
+            } else if (servers.remove(serverId)) {
+                remove(serverId, userId);
+            }
+            return servers;
+        });
+    }
+    
+    private void add(UUID serverId, UUID userId) {
+        onlineByServer.compute(serverId, (id, users) -> {
+            Set<UUID> online = users != null ? users : ConcurrentHashMap.newKeySet();
+            online.add(userId);
+            return online;
+        });
+    }
+    
+    private void remove(UUID serverId, UUID userId) {
+        onlineByServer.computeIfPresent(serverId, (id, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.broadcast.SessionSender;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.dto.PresenceEventDTO;
+import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes presence changes to /topic/server/{serverId}/presence.
+ * Status updates and session opens/closes only mark the user as touched; every window the
+ * effective status of each touched user is computed (offline without an open session,
+ * otherwise the stored status, ONLINE by default) and compared with the last one sent.
+ * Users whose status really changed go out as one DELTA per server they are a member of,
+ * so flapping within a window and repeated heartbeats cost nothing.
+ * New subscribers get a SNAPSHOT of the server's non-offline members (from OnlineMemberIndex)
+ * instead of polling.
+ */
+@Slf4j
+@Component
+public class PresenceBroadcaster {
+    
+    private static final String SERVER_TOPIC_PREFIX = "/topic/server/";
+    private static final String PRESENCE_SUFFIX = "/presence";
+    
+    private final PresenceStore presenceStore;
+    private final WebSocketConnectionManager connectionManager;
+    private final MembershipCache membershipCache;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SessionSender sessionSender;
+    private final OnlineMemberIndex onlineMemberIndex;
+    
+    private final Set<UUID> touched = ConcurrentHashMap.newKeySet();
+    // Last status sent per user; absent means OFFLINE. Only written by the scheduled publish.
+    private final Map<UUID, PresenceStatus> published = new ConcurrentHashMap<>();
+    
+    private final Counter changesSent;
+    private final Counter framesSent;
+    private final Counter snapshotsSent;
+    
+    public PresenceBroadcaster(PresenceStore presenceStore,
+                               WebSocketConnectionManager connectionManager,
+                               MembershipCache membershipCache,
+                               SimpMessagingTemplate messagingTemplate,
+                               SessionSender sessionSender,
+                               OnlineMemberIndex onlineMemberIndex,
+                               MeterRegistry meterRegistry) {
+        this.presenceStore = presenceStore;
+        this.connectionManager = connectionManager;
+        this.membershipCache = membershipCache;
+        this.messagingTemplate = messagingTemplate;
+        this.sessionSender = sessionSender;
+        this.onlineMemberIndex = onlineMemberIndex;
+        this.changesSent = Counter.builder("chat.presence.changes")
+                .description("User status changes published (once per user, not per server)")
+                .register(meterRegistry);
+        this.framesSent = Counter.builder("chat.presence.frames")
+                .tag("type", "delta")
+                .register(meterRegistry);
+        this.snapshotsSent = Counter.builder("chat.presence.frames")
+                .tag("type", "snapshot")
+                .register(meterRegistry);
+        presenceStore.addListener(snapshot -> touch(snapshot.userId()));
+    }
+    
+    public static String presenceTopic(UUID serverId) {
+        return SERVER_TOPIC_PREFIX + serverId + PRESENCE_SUFFIX;
+    }
+    
+    /**
+     * The server of a presence topic, empty for any other destination
+     */
+    public static Optional<UUID> serverIdOf(String destination) {
+        if (destination == null || !destination.startsWith(SERVER_TOPIC_PREFIX) || !destination.endsWith(PRESENCE_SUFFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(destination.substring(
+                    SERVER_TOPIC_PREFIX.length(), destination.length() - PRESENCE_SUFFIX.length())));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Re-evaluate the user's presence in the next window (session opened or closed, status set)
+     */
+    public void touch(UUID userId) {
+        touched.add(userId);
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.presence.delta-window-ms:500}")
+    public void publish() {
+        if (touched.isEmpty()) {
+            return;
+        }
+        List<UUID> users = new ArrayList<>(touched.size());
+        for (UUID userId : touched) {
+            if (touched.remove(userId)) {
+                users.add(userId);
+            }
+        }
+        
+        Set<UUID> connected = connectionManager.filterConnected(users);
+        Map<UUID, Map<UUID, PresenceStatus>> byServer = new HashMap<>();
+        for (UUID userId : users) {
+            PresenceStatus status = effectiveStatus(userId, connected.contains(userId));
+            PresenceStatus previous = status == PresenceStatus.OFFLINE
+                    ? published.remove(userId)
+                    : published.put(userId, status);
+            if ((previous == null ? PresenceStatus.OFFLINE : previous) == status) {
+                continue;
+            }
+            changesSent.increment();
+            for (UUID serverId : membershipCache.getUserServerIds(userId)) {
+                byServer.computeIfAbsent(serverId, id -> new HashMap<>()).put(userId, status);
+            }
+        }
+        
+        byServer.forEach((serverId, changes) -> {
+            messagingTemplate.convertAndSend(presenceTopic(serverId),
+                    new PresenceEventDTO(PresenceEventDTO.DELTA, serverId, changes));
+            framesSent.increment();
+        });
+    }
+    
+    /**
+     * Send the current presence of the server's members to one new subscription
+     */
+    public void sendSnapshot(UUID serverId, String sessionId, String subscriptionId) {
+        Map<UUID, PresenceStatus> online = new HashMap<>();
+        for (UUID userId : onlineMemberIndex.onlineMembers(serverId)) {
+            PresenceStatus status = effectiveStatus(userId, true);
+            if (status != PresenceStatus.OFFLINE) {
+                online.put(userId, status);
+            }
+        }
+        sessionSender.convertAndSend(sessionId, subscriptionId, presenceTopic(serverId),
+                new PresenceEventDTO(PresenceEventDTO.SNAPSHOT, serverId, online));
+        snapshotsSent.increment();
+    }
+    
+    private PresenceStatus effectiveStatus(UUID userId, boolean connected) {
+        if (!connected) {
+            return PresenceStatus.OFFLINE;
+        }
+        return presenceStore.get(userId)
+                .map(PresenceSnapshot::status)
+                .orElse(PresenceStatus.ONLINE);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.config.WebSocketEventListener;
+import com.example.chatapp.enums.PresenceStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves connected users through ONLINE -> IDLE -> OFFLINE without any client call.
+ * Registered on clientInboundChannel, it records two times per user: the last user action
+ * (any SEND, SUBSCRIBE or UNSUBSCRIBE) and the last sign of life (any frame, STOMP heartbeats
+ * included). No action for chat.presence.idle-after makes the user IDLE, no frame at all for
+ * chat.presence.offline-after makes them OFFLINE, and the next action brings them back ONLINE.
+ * DND is never changed automatically.
+ *
+ * Each tracked user has exactly one timer in a TimerWheel, set to the next moment a transition
+ * could happen. Activity only writes a timestamp; it never touches the wheel. When a timer fires,
+ * the user is re-evaluated and the timer re-armed from the latest timestamps, so the cost per
+ * tick depends on the timers due, not on how many users are tracked.
+ */
+@Slf4j
+@Component
+public class PresenceReaper implements ChannelInterceptor {
+    
+    private enum Phase { ACTIVE, IDLE }
+    
+    private static final class Tracked {
+        volatile long lastAction;
+        volatile long lastSeen;
+        // Written under the Tracked instance's lock, read without it by activity()
+        volatile Phase phase = Phase.ACTIVE;
+        
+        Tracked(long now) {
+            this.lastAction = now;
+            this.lastSeen = now;
+        }
+    }
+    
+    private final PresenceStore presenceStore;
+    private final OnlineMemberIndex onlineMemberIndex;
+    private final long idleAfterMillis;
+    private final long offlineAfterMillis;
+    
+    private final Map<UUID, Tracked> tracked = new ConcurrentHashMap<>();
+    private final TimerWheel<UUID> wheel;
+    
+    private final Counter toIdle;
+    private final Counter toOffline;
+    private final Counter toOnline;
+    private final Timer tickTimer;
+    
+    public PresenceReaper(PresenceStore presenceStore,
+                          OnlineMemberIndex onlineMemberIndex,
+                          MeterRegistry meterRegistry,
+                          @Value("${chat.presence.idle-after:PT5M}") Duration idleAfter,
+                          @Value("${chat.presence.offline-after:PT10M}") Duration offlineAfter,
+                          @Value("${chat.presence.reaper.tick-ms:1000}") long tickMillis) {
+        this.presenceStore = presenceStore;
+        this.onlineMemberIndex = onlineMemberIndex;
+        this.idleAfterMillis = idleAfter.toMillis();
+        this.offlineAfterMillis = offlineAfter.toMillis();
+        this.wheel = new TimerWheel<>(tickMillis, System.currentTimeMillis());
+        
+        this.toIdle = transitions(meterRegistry, "idle");
+        this.toOffline = transitions(meterRegistry, "offline");
+        this.toOnline = transitions(meterRegistry, "online");
+        this.tickTimer = Timer.builder("chat.presence.reaper.tick")
+                .description("Time spent per reaper tick")
+                .register(meterRegistry);
+        Gauge.builder("chat.presence.reaper.tracked", tracked, Map::size)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getSessionAttributes() == null) {
+            return message;
+        }
+        if (accessor.getSessionAttributes().get(WebSocketEventListener.USER_ID_ATTRIBUTE) instanceof UUID userId) {
+            SimpMessageType type = accessor.getMessageType();
+            if (type == SimpMessageType.HEARTBEAT) {
+                seen(userId);
+            } else if (type == SimpMessageType.MESSAGE || type == SimpMessageType.SUBSCRIBE
+                    || type == SimpMessageType.UNSUBSCRIBE) {
+                activity(userId);
+            }
+        }
+        return message;
+    }
+    
+    /**
+     * A user action: starts tracking the user, or wakes them from IDLE
+     */
+    public void activity(UUID userId) {
+        long now = System.currentTimeMillis();
+        Tracked state = tracked.get(userId);
+        if (state == null) {
+            track(userId, now);
+            return;
+        }
+        state.lastAction = now;
+        state.lastSeen = now;
+        if (state.phase == Phase.IDLE) {
+            wake(userId, state);
+        }
+    }
+    
+    /**
+     * The user's last session closed: OFFLINE right away
+     */
+    public void disconnected(UUID userId) {
+        Tracked state = tracked.remove(userId);
+        synchronized (wheel) {
+            wheel.cancel(userId);
+        }
+        if (state != null && setAutomatic(userId, PresenceStatus.OFFLINE, state.lastAction)) {
+            toOffline.increment();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.presence.reaper.tick-ms:1000}")
+    public void tick() {
+        tickTimer.record(() -> {
+            long now = System.currentTimeMillis();
+            List<UUID> due;
+            synchronized (wheel) {
+                due = wheel.advance(now);
+            }
+            due.forEach(userId -> evaluate(userId, now));
+        });
+    }
+    
+    private void seen(UUID userId) {
+        Tracked state = tracked.get(userId);
+        if (state != null) {
+            state.lastSeen = System.currentTimeMillis();
+        }
+    }
+    
+    private void track(UUID userId, long now) {
+        Tracked state = new Tracked(now);
+        if (tracked.putIfAbsent(userId, state) != null) {
+            return;
+        }
+        synchronized (wheel) {
+            wheel.schedule(userId, now + Math.min(idleAfterMillis, offlineAfterMillis));
+        }
+        // Back from a timeout OFFLINE with the session still open: list the user again
+        onlineMemberIndex.userOnline(userId);
+        PresenceStatus current = presenceStore.get(userId).map(PresenceSnapshot::status).orElse(null);
+        if (current != PresenceStatus.ONLINE && current != PresenceStatus.DND) {
+            presenceStore.update(userId, PresenceStatus.ONLINE);
+            toOnline.increment();
+        }
+    }
+    
+    private void wake(UUID userId, Tracked state) {
+        synchronized (state) {
+            if (state.phase != Phase.IDLE) {
+                return;
+            }
+            state.phase = Phase.ACTIVE;
+            synchronized (wheel) {
+                wheel.schedule(userId, Math.min(state.lastAction + idleAfterMillis, state.lastSeen + offlineAfterMillis));
+            }
+        }
+        if (presenceStore.get(userId).map(PresenceSnapshot::status).orElse(null) == PresenceStatus.IDLE) {
+            presenceStore.update(userId, PresenceStatus.ONLINE);
+            toOnline.increment();
+        }
+    }
+    
+    private void evaluate(UUID userId, long now) {
+        Tracked state = tracked.get(userId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            long idleAt = state.lastAction + idleAfterMillis;
+            long offlineAt = state.lastSeen + offlineAfterMillis;
+            if (now >= offlineAt) {
+                tracked.remove(userId, state);
+                if (setAutomatic(userId, PresenceStatus.OFFLINE, state.lastAction)) {
+                    toOffline.increment();
+                }
+                // The session is still open, but /online and snapshots must agree with the OFFLINE delta
+                if (presenceStore.get(userId).map(PresenceSnapshot::status).orElse(null) == PresenceStatus.OFFLINE) {
+                    onlineMemberIndex.userOffline(userId);
+                }
+                return;
+            }
+            if (state.phase == Phase.ACTIVE && now >= idleAt) {
+                state.phase = Phase.IDLE;
+                if (setAutomatic(userId, PresenceStatus.IDLE, state.lastAction)) {
+                    toIdle.increment();
+                }
+            }
+            long next = state.phase == Phase.ACTIVE ? Math.min(idleAt, offlineAt) : offlineAt;
+            synchronized (wheel) {
+                wheel.schedule(userId, next);
+            }
+        }
+    }
+    
+    /**
+     * Apply an automatic transition unless the user chose DND (or is already there)
+     */
+    private boolean setAutomatic(UUID userId, PresenceStatus status, long lastActionMillis) {
+        PresenceStatus current = presenceStore.get(userId).map(PresenceSnapshot::status).orElse(null);
+        if (current == PresenceStatus.DND || current == status) {
+            return false;
+        }
+        presenceStore.update(userId, status,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(lastActionMillis), ZoneId.systemDefault()));
+        return true;
+    }
+    
+    private static Counter transitions(MeterRegistry meterRegistry, String to) {
+        return Counter.builder("chat.presence.transitions")
+                .tag("to", to)
+                .description("Automatic presence transitions")
+                .register(meterRegistry);
+    }
+}
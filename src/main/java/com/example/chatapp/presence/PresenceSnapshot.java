@@ -0,0 +1,16 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.enums.PresenceStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Current presence of one user as held by PresenceStore
+ */
+public record PresenceSnapshot(
+    UUID userId,
+    PresenceStatus status,
+    LocalDateTime lastActiveAt
+) {
+}
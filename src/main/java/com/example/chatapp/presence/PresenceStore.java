@@ -0,0 +1,183 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.entity.Presence;
+import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.repository.PresenceRepository;
+import com.example.chatapp.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Presence of every known user, held in memory and written behind to the presence table.
+ * Updates only touch the map and mark the user dirty; a scheduled flush writes the latest
+ * state of each dirty user, so any number of updates between two flushes cost one row write.
+ * The table is read once at startup to rebuild the map and is never read again.
+ * The map is per node: with several nodes, a user's presence is current on the node
+ * that receives their updates and as of the last startup elsewhere.
+ */
+@Slf4j
+@Component
+public class PresenceStore {
+    
+    private final PresenceRepository presenceRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    
+    private final Map<UUID, PresenceSnapshot> presences = new ConcurrentHashMap<>();
+    // userId -> System.nanoTime() of its oldest unflushed update
+    private final Map<UUID, Long> dirtySince = new ConcurrentHashMap<>();
+    
+    private final List<Consumer<PresenceSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    
+    private final Timer flushLag;
+    private final DistributionSummary flushBatch;
+    
+    public PresenceStore(PresenceRepository presenceRepository,
+                         UserRepository userRepository,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${chat.presence.flush-batch-size:500}") int batchSize) {
+        this.presenceRepository = presenceRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        
+        this.flushLag = Timer.builder("chat.presence.flush.lag")
+                .description("Time from a presence update to its write to the database")
+                .register(meterRegistry);
+        this.flushBatch = DistributionSummary.builder("chat.presence.flush.batch")
+                .description("Presence rows written per flush")
+                .register(meterRegistry);
+        Gauge.builder("chat.presence.dirty", dirtySince, Map::size)
+                .description("Presence updates waiting to be flushed")
+                .register(meterRegistry);
+        Gauge.builder("chat.presence.users", presences, Map::size)
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    void load() {
+        presenceRepository.findAllSnapshots().forEach(snapshot -> presences.put(snapshot.userId(), snapshot));
+        log.info("Presence store loaded {} users", presences.size());
+    }
+    
+    public PresenceSnapshot update(UUID userId, PresenceStatus status) {
+        return update(userId, status, LocalDateTime.now());
+    }
+    
+    /**
+     * Set a status with the time the user was last active (automatic transitions report the past activity)
+     */
+    public PresenceSnapshot update(UUID userId, PresenceStatus status, LocalDateTime lastActiveAt) {
+        PresenceSnapshot snapshot = new PresenceSnapshot(userId, status, lastActiveAt);
+        presences.put(userId, snapshot);
+        dirtySince.putIfAbsent(userId, System.nanoTime());
+        listeners.forEach(listener -> listener.accept(snapshot));
+        return snapshot;
+    }
+    
+    /**
+     * Called after every update, on the updating thread; must be cheap
+     */
+    public void addListener(Consumer<PresenceSnapshot> listener) {
+        listeners.add(listener);
+    }
+    
+    public Optional<PresenceSnapshot> get(UUID userId) {
+        return Optional.ofNullable(presences.get(userId));
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval-ms:1000}")
+    public void flush() {
+        if (dirtySince.isEmpty()) {
+            return;
+        }
+        
+        List<PresenceSnapshot> batch = new ArrayList<>(batchSize);
+        List<Long> since = new ArrayList<>(batchSize);
+        for (UUID userId : dirtySince.keySet()) {
+            // A newer update that lands after this remove marks the user dirty again for the next flush
+            Long dirtyAt = dirtySince.remove(userId);
+            PresenceSnapshot snapshot = presences.get(userId);
+            if (dirtyAt == null || snapshot == null) {
+                continue;
+            }
+            batch.add(snapshot);
+            since.add(dirtyAt);
+            if (batch.size() == batchSize) {
+                write(batch, since);
+                batch.clear();
+                since.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, since);
+        }
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+    
+    private void write(List<PresenceSnapshot> batch, List<Long> since) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<UUID, Presence> existing = presenceRepository.findAllById(
+                                batch.stream().map(PresenceSnapshot::userId).toList())
+                        .stream()
+                        .collect(Collectors.toMap(Presence::getId, Function.identity()));
+                
+                List<Presence> rows = new ArrayList<>(batch.size());
+                for (PresenceSnapshot snapshot : batch) {
+                    Presence presence = existing.get(snapshot.userId());
+                    if (presence == null) {
+                        presence = new Presence();
+                        presence.setUser(userRepository.getReferenceById(snapshot.userId()));
+                    }
+                    presence.setStatus(snapshot.status());
+                    presence.setLastActiveAt(snapshot.lastActiveAt());
+                    if (snapshot.status() == PresenceStatus.OFFLINE) {
+                        presence.setLastSeen(snapshot.lastActiveAt());
+                    }
+                    rows.add(presence);
+                }
+                presenceRepository.saveAll(rows);
+            });
+        } catch (RuntimeException e) {
+            // Keep the users dirty so the next flush retries them
+            for (int i = 0; i < batch.size(); i++) {
+                dirtySince.putIfAbsent(batch.get(i).userId(), since.get(i));
+            }
+            log.warn("Presence flush of {} users failed, will retry", batch.size(), e);
+            return;
+        }
+        
+        long now = System.nanoTime();
+        since.forEach(dirtyAt -> flushLag.record(Duration.ofNanos(now - dirtyAt)));
+        flushBatch.record(batch.size());
+    }
+}
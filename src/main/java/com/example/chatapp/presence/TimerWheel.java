@@ -0,0 +1,147 @@
+package com.example.chatapp.presence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel: one timer per key, O(1) schedule / reschedule / cancel,
+ * and per tick only the slot that is due (plus, every 64th tick, one cascaded slot
+ * of a coarser wheel) is visited, however many timers are pending.
+ * Four wheels of 64 slots cover 64^4 ticks; timers further out are parked on the
+ * last wheel and cascaded again when their slot comes round.
+ * Not thread-safe; callers synchronize.
+ */
+public class TimerWheel<K> {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    
+    private static final class Node<K> {
+        final K key;
+        long deadlineTick;
+        Node<K> prev;
+        Node<K> next;
+        
+        Node(K key) {
+            this.key = key;
+        }
+    }
+    
+    private final long tickMillis;
+    private final Node<K>[][] wheels;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long currentTick;
+    
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.wheels = new Node[LEVELS][SLOTS];
+        for (Node<K>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Node<K> sentinel = new Node<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[slot] = sentinel;
+            }
+        }
+    }
+    
+    /**
+     * Fire the key's timer at deadlineMillis (rounded up to the next tick), replacing any earlier timer for it
+     */
+    public void schedule(K key, long deadlineMillis) {
+        Node<K> node = nodes.get(key);
+        if (node != null) {
+            unlink(node);
+        } else {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        }
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        node.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+        insert(node);
+    }
+    
+    public boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+    
+    public int size() {
+        return nodes.size();
+    }
+    
+    /**
+     * Move time forward and return the keys whose timers fired, earliest first.
+     * Fired timers are removed; the caller may schedule them again.
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(currentTick);
+            Node<K> sentinel = wheels[0][(int) (currentTick & MASK)];
+            for (Node<K> node = sentinel.next; node != sentinel; ) {
+                Node<K> next = node.next;
+                unlink(node);
+                nodes.remove(node.key);
+                expired.add(node.key);
+                node = next;
+            }
+        }
+        return expired;
+    }
+    
+    /**
+     * On a wheel boundary, spread the due slot of each coarser wheel over the finer ones
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Node<K> sentinel = wheels[level][(int) ((tick >>> shift) & MASK)];
+            Node<K> node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.prev = sentinel;
+            while (node != sentinel) {
+                Node<K> next = node.next;
+                insert(node);
+                node = next;
+            }
+        }
+    }
+    
+    private void insert(Node<K> node) {
+        long delta = Math.max(node.deadlineTick - currentTick, 0);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        // A timer due now (cascaded onto its own tick) goes into the slot processed next
+        long tick = Math.max(node.deadlineTick, currentTick);
+        Node<K> sentinel = wheels[level][(int) ((tick >>> (SLOT_BITS * level)) & MASK)];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+    
+    private static <K> void unlink(Node<K> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+}
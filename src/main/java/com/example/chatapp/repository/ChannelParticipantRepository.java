@@ -0,0 +1,27 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.entity.ChannelParticipant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChannelParticipantRepository extends JpaRepository<ChannelParticipant, Long> {
+    
+    @Query("select p.user.id from ChannelParticipant p where p.channel.id = :channelId")
+    List<UUID> findUserIdsByChannelId(@Param("channelId") UUID channelId);
+    
+    /**
+     * DM channels shared by exactly these two users, oldest first
+     */
+    @Query("select p.channel.id from ChannelParticipant p, ChannelParticipant q " +
+           "where q.channel = p.channel and p.user.id = :userId and q.user.id = :otherUserId " +
+           "and p.channel.type = com.example.chatapp.enums.ChannelType.DM " +
+           "and (select count(r) from ChannelParticipant r where r.channel = p.channel) = 2 " +
+           "order by p.channel.id")
+    List<UUID> findDirectChannelIds(@Param("userId") UUID userId, @Param("otherUserId") UUID otherUserId);
+}
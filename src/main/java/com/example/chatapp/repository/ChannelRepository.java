@@ -1,11 +1,15 @@
 package com.example.chatapp.repository;
 
+import com.example.chatapp.cache.ChannelRoute;
 import com.example.chatapp.entity.Channel;
 import com.example.chatapp.entity.Server;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -14,4 +18,8 @@ public interface ChannelRepository extends JpaRepository<Channel, UUID> {
     List<Channel> findByServer(Server server);
     
     List<Channel> findByServerOrderByName(Server server);
+    
+    @Query("select new com.example.chatapp.cache.ChannelRoute(c.id, s.id, c.type) " +
+           "from Channel c left join c.server s where c.id = :channelId")
+    Optional<ChannelRoute> findRouteById(@Param("channelId") UUID channelId);
 }
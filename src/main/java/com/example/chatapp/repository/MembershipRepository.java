@@ -1,9 +1,12 @@
 package com.example.chatapp.repository;
 
+import com.example.chatapp.cache.MembershipSnapshot;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.Server;
 import com.example.chatapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +23,14 @@ public interface MembershipRepository extends JpaRepository<Membership, Long> {
     List<Membership> findByServer(Server server);
     
     boolean existsByUserAndServer(User user, Server server);
+    
+    @Query("select new com.example.chatapp.cache.MembershipSnapshot(m.role, m.mutedUntil) " +
+           "from Membership m where m.user.id = :userId and m.server.id = :serverId")
+    Optional<MembershipSnapshot> findSnapshot(@Param("userId") UUID userId, @Param("serverId") UUID serverId);
+    
+    @Query("select m.user.id from Membership m where m.server.id = :serverId")
+    List<UUID> findUserIdsByServerId(@Param("serverId") UUID serverId);
+    
+    @Query("select m.server.id from Membership m where m.user.id = :userId")
+    List<UUID> findServerIdsByUserId(@Param("userId") UUID userId);
 }
@@ -1,19 +1,80 @@
 package com.example.chatapp.repository;
 
+import com.example.chatapp.dto.MessageProjection;
 import com.example.chatapp.entity.Message;
-import com.example.chatapp.entity.Channel;
 import com.example.chatapp.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
-    
-    List<Message> findByChannelOrderByCreatedAtDesc(Channel channel);
-    
+
     List<Message> findByAuthor(User author);
     
-    List<Message> findByChannelAndContextContainingIgnoreCase(Channel channel, String keyword);
+    @Query("select distinct m.author.id from Message m where m.channel.id = :channelId")
+    List<UUID> findAuthorIdsByChannelId(@Param("channelId") UUID channelId);
+
+    // Read path: one query per page, projected straight into MessageProjection
+    // Keyset pagination over idx_messages_channel_created_id (channel_id, created_at, id)
+
+    String PROJECTION_SELECT = "select new com.example.chatapp.dto.MessageProjection(" +
+            "m.id, m.channel.id, a.id, a.username, a.avatarUrl, m.context, m.createdAt, m.editedAt, r.id) " +
+            "from Message m join m.author a left join m.replyToMessage r ";
+
+    @Query(PROJECTION_SELECT +
+           "where m.channel.id = :channelId " +
+           "order by m.createdAt desc, m.id desc")
+    List<MessageProjection> findLatestInChannel(@Param("channelId") UUID channelId, Pageable pageable);
+
+    @Query(PROJECTION_SELECT +
+           "where m.channel.id = :channelId " +
+           "and (m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id)) " +
+           "order by m.createdAt desc, m.id desc")
+    List<MessageProjection> findInChannelBefore(@Param("channelId") UUID channelId,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query(PROJECTION_SELECT +
+           "where m.channel.id = :channelId " +
+           "and (m.createdAt > :createdAt or (m.createdAt = :createdAt and m.id > :id)) " +
+           "order by m.createdAt asc, m.id asc")
+    List<MessageProjection> findInChannelAfter(@Param("channelId") UUID channelId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query(PROJECTION_SELECT + "where m.id in :ids")
+    List<MessageProjection> findProjectionsByIdIn(@Param("ids") List<Long> ids);
+
+    // Full-text search over messages.search_vector (see MessageSearchIndexInitializer), best match first
+
+    @Query(value = "select m.id from messages m " +
+                   "where m.channel_id = :channelId " +
+                   "and m.search_vector @@ websearch_to_tsquery('simple', :query) " +
+                   "order by ts_rank(m.search_vector, websearch_to_tsquery('simple', :query)) desc, m.id desc " +
+                   "limit :limit offset :offset",
+           nativeQuery = true)
+    List<Long> searchIdsInChannel(@Param("channelId") UUID channelId,
+                                  @Param("query") String query,
+                                  @Param("limit") int limit,
+                                  @Param("offset") long offset);
+
+    @Query(value = "select m.id from messages m join channels c on c.id = m.channel_id " +
+                   "where c.server_id = :serverId " +
+                   "and m.search_vector @@ websearch_to_tsquery('simple', :query) " +
+                   "order by ts_rank(m.search_vector, websearch_to_tsquery('simple', :query)) desc, m.id desc " +
+                   "limit :limit offset :offset",
+           nativeQuery = true)
+    List<Long> searchIdsInServer(@Param("serverId") UUID serverId,
+                                 @Param("query") String query,
+                                 @Param("limit") int limit,
+                                 @Param("offset") long offset);
 }
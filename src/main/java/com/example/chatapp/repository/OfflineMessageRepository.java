@@ -0,0 +1,49 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.entity.OfflineMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OfflineMessageRepository extends JpaRepository<OfflineMessage, Long> {
+    
+    @Query("select o from OfflineMessage o " +
+           "where o.recipientId = :recipientId and o.expiresAt > :now " +
+           "order by o.enqueuedAt asc, o.id asc")
+    List<OfflineMessage> findPending(@Param("recipientId") UUID recipientId,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+    
+    @Query("select o.recipientId from OfflineMessage o " +
+           "where o.messageId = :messageId and o.recipientId in :recipientIds")
+    List<UUID> findQueuedRecipients(@Param("messageId") Long messageId,
+                                    @Param("recipientIds") Collection<UUID> recipientIds);
+    
+    @Modifying
+    @Query("delete from OfflineMessage o where o.recipientId = :recipientId and o.id in :ids")
+    int deleteAcknowledged(@Param("recipientId") UUID recipientId, @Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("delete from OfflineMessage o where o.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    /**
+     * Keep only the newest maxSize entries of a recipient, by enqueue time (ids come from a pooled
+     * sequence, so with several nodes they are not ordered by insert time)
+     */
+    @Modifying
+    @Query(value = "delete from offline_messages where recipient_id = :recipientId and id not in (" +
+                   "select id from offline_messages where recipient_id = :recipientId " +
+                   "order by enqueued_at desc, id desc limit :maxSize)",
+           nativeQuery = true)
+    int trimToNewest(@Param("recipientId") UUID recipientId, @Param("maxSize") int maxSize);
+}
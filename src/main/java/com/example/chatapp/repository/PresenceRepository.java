@@ -3,7 +3,9 @@ package com.example.chatapp.repository;
 import com.example.chatapp.entity.Presence;
 import com.example.chatapp.entity.User;
 import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.presence.PresenceSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +18,8 @@ public interface PresenceRepository extends JpaRepository<Presence, UUID> {
     Optional<Presence> findByUser(User user);
     
     List<Presence> findByStatus(PresenceStatus status);
+    
+    // Startup load of PresenceStore, without touching users
+    @Query("select new com.example.chatapp.presence.PresenceSnapshot(p.id, p.status, p.lastActiveAt) from Presence p")
+    List<PresenceSnapshot> findAllSnapshots();
 }
@@ -1,9 +1,14 @@
 package com.example.chatapp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.chatapp.dto.UserDTO;
 import com.example.chatapp.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +16,10 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select new com.example.chatapp.dto.UserDTO(u.id, u.username, u.avatarUrl) from User u where u.id = :id")
+    Optional<UserDTO> findProfileById(@Param("id") UUID id);
+
+    @Query("select u.id from User u where u.username in :usernames")
+    List<UUID> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
 }
\ No newline at end of file
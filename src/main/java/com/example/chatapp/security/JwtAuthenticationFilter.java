@@ -43,14 +43,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String token = authHeader.substring(7);
         try {
-            String email = jwtUtil.getEmailFromToken(token);
+            JwtPrincipal principal = jwtUtil.verify(token);
 
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User user = userRepository.findByEmail(email)
-                        .orElseThrow(() -> new RuntimeException("User not found"));
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                if (principal.userId() == null) {
+                    // Token issued before the userId claim existed: resolve it once here, not in every controller
+                    User user = userRepository.findByEmail(principal.email())
+                            .orElseThrow(() -> new RuntimeException("User not found"));
+                    principal = principal.withUserId(user.getId());
+                }
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        email, null, java.util.Collections.emptyList()
+                        principal, null, java.util.Collections.emptyList()
                 );
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
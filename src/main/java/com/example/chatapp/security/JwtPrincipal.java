@@ -0,0 +1,27 @@
+package com.example.chatapp.security;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Identity carried by a verified JWT.
+ * {@code userId} is null for tokens issued before the userId claim was added;
+ * JwtAuthenticationFilter fills it in before the principal reaches controllers.
+ */
+public record JwtPrincipal(
+    String email,
+    UUID userId,
+    String username,
+    Instant expiresAt
+) implements Principal {
+    
+    @Override
+    public String getName() {
+        return email;
+    }
+    
+    public JwtPrincipal withUserId(UUID resolvedUserId) {
+        return new JwtPrincipal(email, resolvedUserId, username, expiresAt);
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.chatapp.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.example.chatapp.cache.LocalCache;
 import com.example.chatapp.entity.User;
 
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
     @Value("${jwt.secret}")
@@ -18,28 +26,74 @@ public class JwtUtil {
     @Value("${jwt.expirationMs}")
     private long expirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${jwt.cache.ttl:PT1H}")
+    private Duration cacheTtl;
+
+    private final MeterRegistry meterRegistry;
+
+    // Built once; both are immutable and thread-safe
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    // Verified token -> principal, so a token's signature is checked once, not on every request
+    private LocalCache<String, JwtPrincipal> verifiedTokens;
+
+    private Timer verificationTimer;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+        // A cached principal never outlives its token
+        verifiedTokens = new LocalCache<>("jwt", cacheTtl, cacheMaxSize, JwtPrincipal::expiresAt, meterRegistry);
+        verificationTimer = Timer.builder("chat.jwt.verification")
+                .description("Time spent parsing and verifying JWT signatures")
+                .register(meterRegistry);
     }
 
     public String generateToken(User user) {
         return Jwts.builder()
                 .setSubject(user.getEmail())
                 .claim("username", user.getUsername())
+                .claim("userId", user.getId().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verify a token and return its principal. Tokens verified before are served
+     * from the cache until they expire.
+     *
+     * @throws JwtException if the token is invalid or expired
+     */
+    public JwtPrincipal verify(String token) {
+        return verifiedTokens.get(token, this::parse);
+    }
+
+    private JwtPrincipal parse(String token) {
+        Claims claims = verificationTimer.record(() -> jwtParser.parseClaimsJws(token).getBody());
+        String userId = claims.get("userId", String.class);
+        return new JwtPrincipal(
+                claims.getSubject(),
+                userId != null ? UUID.fromString(userId) : null,
+                claims.get("username", String.class),
+                claims.getExpiration().toInstant()
+        );
+    }
+
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return verify(token).email();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException e) {
             return false;
@@ -51,11 +105,6 @@ public class JwtUtil {
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("username", String.class);
-    }
-}
\ No newline at end of file
+        return verify(token).username();
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.chatapp.security;
+
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.config.WebSocketEventListener;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.repository.MembershipRepository;
+import com.example.chatapp.repository.UserRepository;
+import com.example.chatapp.service.impl.OfflineMessageServiceImpl;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticates STOMP sessions and authorizes their subscriptions.
+ * CONNECT must carry "Authorization: Bearer &lt;jwt&gt;" as a native header (browsers cannot set
+ * handshake headers), or come over a handshake that JwtAuthenticationFilter already authenticated.
+ * The token is verified through JwtUtil and the user's server memberships are loaded once; the
+ * resulting StompPrincipal becomes the session user, so later frames need no lookups.
+ * SUBSCRIBE to channel, server and private user destinations is then checked in memory;
+ * DM channel topics are open to the channel's participants only.
+ * Unauthenticated CONNECTs and unauthorized SUBSCRIBEs get a STOMP ERROR frame.
+ * When a user leaves, is kicked from or is banned from a server, the open sessions' subscriptions
+ * to that server's channel and server topics are removed from the broker, so they stop receiving.
+ */
+@Slf4j
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+    
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER = "Bearer ";
+    
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/channel/";
+    private static final String SERVER_TOPIC_PREFIX = "/topic/server/";
+    private static final String USER_QUEUE_PREFIX = "/queue/user/";
+    
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
+    private final MeterRegistry meterRegistry;
+    private final MessageChannel brokerChannel;
+    
+    // Open sessions per user, to drop revoked memberships from their principals
+    private final Map<UUID, Set<StompPrincipal>> principalsByUser = new ConcurrentHashMap<>();
+    
+    public StompAuthenticationInterceptor(JwtUtil jwtUtil,
+                                          UserRepository userRepository,
+                                          MembershipRepository membershipRepository,
+                                          MembershipCache membershipCache,
+                                          MeterRegistry meterRegistry,
+                                          @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.membershipRepository = membershipRepository;
+        this.membershipCache = membershipCache;
+        this.meterRegistry = meterRegistry;
+        this.brokerChannel = brokerChannel;
+        membershipCache.addEvictionListener(this::revokeMembership);
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> authenticate(accessor);
+            case SUBSCRIBE -> authorize(accessor);
+            case UNSUBSCRIBE -> {
+                if (accessor.getUser() instanceof StompPrincipal principal && accessor.getSubscriptionId() != null) {
+                    principal.unsubscribed(accessor.getSubscriptionId());
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (event.getUser() instanceof StompPrincipal principal) {
+            principalsByUser.computeIfPresent(principal.userId(), (id, principals) -> {
+                principals.remove(principal);
+                return principals.isEmpty() ? null : principals;
+            });
+        }
+    }
+    
+    private void authenticate(StompHeaderAccessor accessor) {
+        JwtPrincipal jwt;
+        try {
+            jwt = resolveToken(accessor);
+        } catch (JwtException e) {
+            outcome("connect", "invalid-token");
+            throw new MessageDeliveryException("Invalid JWT token");
+        }
+        if (jwt == null) {
+            outcome("connect", "missing-token");
+            throw new MessageDeliveryException("Missing Authorization header");
+        }
+        
+        if (jwt.userId() == null) {
+            // Token issued before the userId claim existed, as in JwtAuthenticationFilter
+            UUID userId = userRepository.findByEmail(jwt.email())
+                    .map(User::getId)
+                    .orElseThrow(() -> new MessageDeliveryException("User not found"));
+            jwt = jwt.withUserId(userId);
+        }
+        
+        StompPrincipal principal = new StompPrincipal(jwt, accessor.getSessionId(),
+                membershipRepository.findServerIdsByUserId(jwt.userId()));
+        accessor.setUser(principal);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null) {
+            attributes.put(WebSocketEventListener.USER_ID_ATTRIBUTE, principal.userId());
+        }
+        principalsByUser.computeIfAbsent(principal.userId(), id -> ConcurrentHashMap.newKeySet()).add(principal);
+        outcome("connect", "accepted");
+    }
+    
+    private JwtPrincipal resolveToken(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
+        if (header != null && header.startsWith(BEARER)) {
+            return jwtUtil.verify(header.substring(BEARER.length()));
+        }
+        // Handshake already authenticated by JwtAuthenticationFilter
+        Principal user = accessor.getUser();
+        if (user instanceof Authentication authentication && authentication.getPrincipal() instanceof JwtPrincipal jwt) {
+            return jwt;
+        }
+        return null;
+    }
+    
+    private void authorize(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        if (!(accessor.getUser() instanceof StompPrincipal principal)) {
+            outcome("subscribe", "denied");
+            throw new MessageDeliveryException("Not authenticated");
+        }
+        
+        boolean allowed;
+        // The server whose membership grants the subscription, if any
+        UUID serverId = null;
+        if (destination.startsWith(CHANNEL_TOPIC_PREFIX)) {
+            Optional<ChannelRoute> route = idAfter(destination, CHANNEL_TOPIC_PREFIX)
+                    .flatMap(membershipCache::getChannelRoute);
+            allowed = route.map(r -> mayReadChannel(principal, r)).orElse(false);
+            serverId = route.map(ChannelRoute::serverId).orElse(null);
+        } else if (destination.startsWith(SERVER_TOPIC_PREFIX)) {
+            serverId = idAfter(destination, SERVER_TOPIC_PREFIX).orElse(null);
+            allowed = serverId != null && isMember(principal, serverId);
+        } else if (destination.startsWith(USER_QUEUE_PREFIX)) {
+            allowed = OfflineMessageServiceImpl.userQueue(principal.userId()).equals(destination);
+        } else {
+            allowed = true;
+        }
+        
+        if (!allowed) {
+            outcome("subscribe", "denied");
+            log.debug("User {} may not subscribe to {}", principal.userId(), destination);
+            throw new MessageDeliveryException("Not allowed to subscribe to " + destination);
+        }
+        if (serverId != null && accessor.getSubscriptionId() != null) {
+            principal.subscribed(accessor.getSubscriptionId(), serverId);
+        }
+    }
+    
+    private boolean mayReadChannel(StompPrincipal principal, ChannelRoute route) {
+        if (route.serverId() == null) {
+            // Direct message channels have no server; only their participants may read them
+            return membershipCache.getChannelParticipants(route.channelId()).contains(principal.userId());
+        }
+        return isMember(principal, route.serverId());
+    }
+    
+    private boolean isMember(StompPrincipal principal, UUID serverId) {
+        if (principal.serverIds().contains(serverId)) {
+            return true;
+        }
+        // Joined after CONNECT (or revoked and re-checked): ask the membership cache once
+        if (membershipCache.getMembership(principal.userId(), serverId).isPresent()) {
+            principal.serverIds().add(serverId);
+            return true;
+        }
+        return false;
+    }
+    
+    private void revokeMembership(UUID userId, UUID serverId) {
+        Set<StompPrincipal> principals = principalsByUser.get(userId);
+        if (principals == null) {
+            return;
+        }
+        // Mutes and role changes evict the membership too; only a membership that is gone ends subscriptions
+        if (membershipCache.getMembership(userId, serverId).isPresent()) {
+            return;
+        }
+        for (StompPrincipal principal : principals) {
+            for (String subscriptionId : principal.revoke(serverId)) {
+                unsubscribe(principal, subscriptionId);
+            }
+        }
+    }
+    
+    /**
+     * Remove a subscription from the broker on the session's behalf, as if the client had sent UNSUBSCRIBE
+     */
+    private void unsubscribe(StompPrincipal principal, String subscriptionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(principal.sessionId());
+        headers.setSubscriptionId(subscriptionId);
+        headers.setUser(principal);
+        brokerChannel.send(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+        outcome("unsubscribe", "revoked");
+        log.debug("Subscription {} of session {} removed after membership revocation", subscriptionId, principal.sessionId());
+    }
+    
+    private void outcome(String command, String result) {
+        meterRegistry.counter("chat.websocket.auth", "command", command, "result", result).increment();
+    }
+    
+    private static Optional<UUID> idAfter(String destination, String prefix) {
+        String rest = destination.substring(prefix.length());
+        int slash = rest.indexOf('/');
+        try {
+            return Optional.of(UUID.fromString(slash < 0 ? rest : rest.substring(0, slash)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chatapp.security;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Principal of an authenticated STOMP session, resolved once on CONNECT.
+ * The server id set starts as the user's memberships at connect time; servers joined later
+ * are added on first use and servers left, kicked from or banned from are removed as their
+ * membership is evicted (see StompAuthenticationInterceptor), together with the session's
+ * subscriptions to that server's destinations.
+ * One instance per session, compared by identity.
+ */
+public final class StompPrincipal implements Principal {
+    
+    private final JwtPrincipal jwt;
+    private final String sessionId;
+    private final Set<UUID> serverIds = ConcurrentHashMap.newKeySet();
+    // subscriptionId -> server whose membership the subscription was authorized by
+    private final Map<String, UUID> serverSubscriptions = new ConcurrentHashMap<>();
+    
+    public StompPrincipal(JwtPrincipal jwt, String sessionId, Iterable<UUID> serverIds) {
+        this.jwt = jwt;
+        this.sessionId = sessionId;
+        serverIds.forEach(this.serverIds::add);
+    }
+    
+    public UUID userId() {
+        return jwt.userId();
+    }
+    
+    public String username() {
+        return jwt.username();
+    }
+    
+    public String sessionId() {
+        return sessionId;
+    }
+    
+    /**
+     * Live set of the servers this session is known to be a member of
+     */
+    public Set<UUID> serverIds() {
+        return serverIds;
+    }
+    
+    public void subscribed(String subscriptionId, UUID serverId) {
+        serverSubscriptions.put(subscriptionId, serverId);
+    }
+    
+    public void unsubscribed(String subscriptionId) {
+        serverSubscriptions.remove(subscriptionId);
+    }
+    
+    /**
+     * Forget the server and return the ids of this session's subscriptions that depended on it
+     */
+    public List<String> revoke(UUID serverId) {
+        serverIds.remove(serverId);
+        List<String> revoked = serverSubscriptions.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(serverId))
+                .map(Map.Entry::getKey)
+                .toList();
+        revoked.forEach(serverSubscriptions::remove);
+        return revoked;
+    }
+    
+    @Override
+    public String getName() {
+        return jwt.getName();
+    }
+}
@@ -13,4 +13,9 @@ public interface ChannelService {
     List<ChannelDTO> getServerChannels(UUID serverId);
     
     ChannelDTO getChannelById(UUID channelId);
+    
+    /**
+     * The DM channel between the two users, created with both as participants if it does not exist yet
+     */
+    ChannelDTO openDirectChannel(UUID userId, UUID otherUserId);
 }
@@ -10,11 +10,25 @@ public interface MessageService {
     
     MessageDTO createMessage(CreateMessageRequest request, UUID userId);
     
+    /**
+     * Validate and persist a batch of messages in one transaction, with a single fan-out for the batch
+     */
+    List<MessageDTO> createMessages(List<CreateMessageRequest> requests, UUID userId);
+    
     MessageDTO updateMessage(Long messageId, String newContent, UUID userId);
     
     void deleteMessage(Long messageId, UUID userId);
     
-    List<MessageDTO> getChannelMessages(UUID channelId);
+    /**
+     * Returns one page of channel history, newest first.
+     * At most one of {@code beforeMessageId} / {@code afterMessageId} may be set;
+     * with neither, the latest page is returned.
+     */
+    List<MessageDTO> getChannelMessages(UUID channelId, Long beforeMessageId, Long afterMessageId, int limit);
     
-    List<MessageDTO> searchMessages(UUID channelId, String keyword);
+    /**
+     * Full-text search ranked by relevance, scoped to a single channel or a whole server.
+     * Exactly one of {@code channelId} / {@code serverId} must be set.
+     */
+    List<MessageDTO> searchMessages(UUID channelId, UUID serverId, String keyword, int page, int size);
 }
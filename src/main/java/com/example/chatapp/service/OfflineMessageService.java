@@ -0,0 +1,25 @@
+package com.example.chatapp.service;
+
+import com.example.chatapp.entity.Message;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OfflineMessageService {
+    
+    /**
+     * Queue a direct message for recipients without an open session
+     */
+    void enqueue(Message message, Collection<UUID> recipientIds);
+    
+    /**
+     * Send the oldest pending batch straight to one subscription of the user
+     */
+    void deliverNextBatch(UUID userId, String sessionId, String subscriptionId);
+    
+    /**
+     * Drop the acknowledged entries of a delivered batch and send the next batch to the same subscription
+     */
+    void acknowledge(UUID userId, List<Long> ackIds, String sessionId, String subscriptionId);
+}
@@ -1,13 +1,19 @@
 package com.example.chatapp.service;
 
-import com.example.chatapp.entity.User;
+import com.example.chatapp.dto.UserDTO;
+import com.example.chatapp.presence.PresenceSnapshot;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface PresenceService {
     
     void updatePresence(UUID userId, String status);
     
-    List<User> getOnlineMembers(UUID serverId);
+    Optional<PresenceSnapshot> getPresence(UUID userId);
+    
+    List<UserDTO> getOnlineMembers(UUID serverId, int page, int size);
+    
+    int countOnlineMembers(UUID serverId);
 }
@@ -3,10 +3,13 @@ package com.example.chatapp.service.impl;
 import com.example.chatapp.dto.ChannelDTO;
 import com.example.chatapp.dto.CreateChannelRequest;
 import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.ChannelParticipant;
 import com.example.chatapp.entity.Server;
 import com.example.chatapp.entity.User;
 import com.example.chatapp.exception.BadRequestException;
+import com.example.chatapp.enums.ChannelType;
 import com.example.chatapp.pattern.factory.ChannelFactoryProvider;
+import com.example.chatapp.repository.ChannelParticipantRepository;
 import com.example.chatapp.repository.ChannelRepository;
 import com.example.chatapp.repository.ServerRepository;
 import com.example.chatapp.repository.UserRepository;
@@ -29,6 +32,7 @@ import java.util.stream.Collectors;
 public class ChannelServiceImpl implements ChannelService {
     
     private final ChannelRepository channelRepository;
+    private final ChannelParticipantRepository channelParticipantRepository;
     private final ServerRepository serverRepository;
     private final UserRepository userRepository;
     private final ChannelFactoryProvider channelFactory;
@@ -36,6 +40,10 @@ public class ChannelServiceImpl implements ChannelService {
     @Override
     @Transactional
     public ChannelDTO createChannel(CreateChannelRequest request, UUID userId) {
+        if (request.type() == ChannelType.DM) {
+            throw new BadRequestException("DM channels are opened with a user, not created in a server");
+        }
+        
         // Validate user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BadRequestException("User not found"));
@@ -82,6 +90,33 @@ public class ChannelServiceImpl implements ChannelService {
         return convertToDTO(channel);
     }
     
+    @Override
+    @Transactional
+    public ChannelDTO openDirectChannel(UUID userId, UUID otherUserId) {
+        if (userId.equals(otherUserId)) {
+            throw new BadRequestException("Cannot open a DM with yourself");
+        }
+        
+        List<UUID> existing = channelParticipantRepository.findDirectChannelIds(userId, otherUserId);
+        if (!existing.isEmpty()) {
+            return getChannelById(existing.get(0));
+        }
+        
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new BadRequestException("User not found"));
+        User other = userRepository.findById(otherUserId)
+                .orElseThrow(() -> new BadRequestException("User not found"));
+        
+        Channel channel = channelRepository.save(
+                channelFactory.createChannel(ChannelType.DM, user.getUsername() + ", " + other.getUsername(), null, null));
+        channelParticipantRepository.saveAll(List.of(
+                new ChannelParticipant(null, channel, user, null),
+                new ChannelParticipant(null, channel, other, null)));
+        log.info("DM channel {} opened between {} and {}", channel.getId(), userId, otherUserId);
+        
+        return convertToDTO(channel);
+    }
+    
     private ChannelDTO convertToDTO(Channel channel) {
         return new ChannelDTO(
             channel.getId(),
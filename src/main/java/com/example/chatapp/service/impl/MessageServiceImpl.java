@@ -1,10 +1,13 @@
 package com.example.chatapp.service.impl;
 
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.cache.MembershipSnapshot;
 import com.example.chatapp.dto.CreateMessageRequest;
 import com.example.chatapp.dto.MessageDTO;
+import com.example.chatapp.dto.MessageProjection;
 import com.example.chatapp.dto.UserDTO;
 import com.example.chatapp.entity.Channel;
-import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.Message;
 import com.example.chatapp.entity.User;
 import com.example.chatapp.exception.BadRequestException;
@@ -13,17 +16,25 @@ import com.example.chatapp.pattern.observer.MessageSubject;
 import com.example.chatapp.pattern.strategy.MessagingContext;
 import com.example.chatapp.repository.ChannelRepository;
 import com.example.chatapp.repository.MessageRepository;
-import com.example.chatapp.repository.MembershipRepository;
+import com.example.chatapp.repository.ServerRepository;
 import com.example.chatapp.repository.UserRepository;
 import com.example.chatapp.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -37,10 +48,17 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
     
+    private static final int DEFAULT_HISTORY_LIMIT = 50;
+    private static final int MAX_HISTORY_LIMIT = 200;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    
     private final MessageRepository messageRepository;
     private final ChannelRepository channelRepository;
     private final UserRepository userRepository;
-    private final MembershipRepository membershipRepository;
+    private final ServerRepository serverRepository;
+    private final MembershipCache membershipCache;
     
     // Design Pattern Components
     private final MessageFactoryProvider messageFactory;
@@ -50,24 +68,15 @@ public class MessageServiceImpl implements MessageService {
     @Override
     @Transactional
     public MessageDTO createMessage(CreateMessageRequest request, UUID userId) {
-        // Validate user and channel
-        User author = userRepository.findById(userId)
+        // Validate user and channel from the membership cache; no DB round trip on a warm cache
+        UserDTO authorProfile = membershipCache.getUserProfile(userId)
                 .orElseThrow(() -> new BadRequestException("User not found"));
         
-        Channel channel = channelRepository.findById(request.channelId())
-                .orElseThrow(() -> new BadRequestException("Channel not found"));
-        
-        if (channel.getServer() != null) {
-
-            Membership membership = membershipRepository.findByUserAndServer(author, channel.getServer())
-                    .orElseThrow(() -> new BadRequestException("User is not a member of this server"));
-
-            if (membership.getMutedUntil() != null && membership.getMutedUntil().isAfter(LocalDateTime.now())) {
-                log.warn("User {} tried to message but is muted until {}", author.getUsername(), membership.getMutedUntil());
-                throw new BadRequestException("You are muted in this server until: " + membership.getMutedUntil());
-            }
-        }
+        ChannelRoute route = resolveWritableChannel(request.channelId(), userId, authorProfile);
 
+        // Both already validated above, references avoid re-selecting the rows
+        User author = userRepository.getReferenceById(userId);
+        Channel channel = channelRepository.getReferenceById(route.channelId());
         
         // Use Factory Pattern to create message
         String messageType = request.type() != null ? request.type() : "TEXT";
@@ -75,19 +84,64 @@ public class MessageServiceImpl implements MessageService {
         
         // Save message
         message = messageRepository.save(message);
-        log.info("Message created: {} in channel: {}", message.getId(), channel.getId());
+        log.info("Message created: {} in channel: {}", message.getId(), route.channelId());
         
         // Use Observer Pattern to notify observers
         messageSubject.notifyMessageCreated(message);
         
         // Use Strategy Pattern to send message based on channel type
-        String strategyType = determineStrategyType(channel);
-        List<User> recipients = getChannelMembers(channel);
-        messagingContext.executeStrategy(strategyType, message, recipients);
+        String strategyType = determineStrategyType(route);
+        messagingContext.executeStrategy(strategyType, message, route);
         
-        return convertToDTO(message);
+        return convertToDTO(message, authorProfile);
     }
     
+    @Override
+    @Transactional
+    public List<MessageDTO> createMessages(List<CreateMessageRequest> requests, UUID userId) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one message");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Batch must not contain more than " + MAX_BATCH_SIZE + " messages");
+        }
+        
+        // Validate the whole batch up front: each distinct channel and membership is checked once
+        UserDTO authorProfile = membershipCache.getUserProfile(userId)
+                .orElseThrow(() -> new BadRequestException("User not found"));
+        Map<UUID, ChannelRoute> routes = new LinkedHashMap<>();
+        for (CreateMessageRequest request : requests) {
+            if (request.channelId() == null) {
+                throw new BadRequestException("Every message must specify a channelId");
+            }
+            routes.computeIfAbsent(request.channelId(), channelId -> resolveWritableChannel(channelId, userId, authorProfile));
+        }
+        
+        User author = userRepository.getReferenceById(userId);
+        List<Message> messages = new ArrayList<>(requests.size());
+        for (CreateMessageRequest request : requests) {
+            Channel channel = channelRepository.getReferenceById(request.channelId());
+            String messageType = request.type() != null ? request.type() : "TEXT";
+            messages.add(messageFactory.createMessage(messageType, request.content(), channel, author));
+        }
+        
+        // Sequence ids are pre-allocated, so these go out as JDBC batch inserts
+        messages = messageRepository.saveAll(messages);
+        log.info("Batch of {} messages created by user {} across {} channels", messages.size(), userId, routes.size());
+        
+        // One observer event for the whole batch, one recipient resolution per channel
+        messageSubject.notifyMessagesCreated(messages);
+        Map<UUID, List<Message>> byChannel = messages.stream()
+                .collect(Collectors.groupingBy(message -> message.getChannel().getId(), LinkedHashMap::new, Collectors.toList()));
+        byChannel.forEach((channelId, channelMessages) -> {
+            ChannelRoute route = routes.get(channelId);
+            messagingContext.executeStrategy(determineStrategyType(route), channelMessages, route);
+        });
+        
+        return messages.stream()
+                .map(message -> convertToDTO(message, authorProfile))
+                .collect(Collectors.toList());
+    }
     
     @Override
     @Transactional
@@ -120,50 +174,133 @@ public class MessageServiceImpl implements MessageService {
             throw new BadRequestException("You don't have permission to delete this message");
         }
         
+        UUID channelId = message.getChannel().getId();
         messageRepository.delete(message);
-        messageSubject.notifyMessageDeleted(messageId);
+        messageSubject.notifyMessageDeleted(channelId, messageId);
     }
     
     @Override
-    public List<MessageDTO> getChannelMessages(UUID channelId) {
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new BadRequestException("Channel not found"));
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getChannelMessages(UUID channelId, Long beforeMessageId, Long afterMessageId, int limit) {
+        if (beforeMessageId != null && afterMessageId != null) {
+            throw new BadRequestException("Only one of 'before' and 'after' may be specified");
+        }
+        if (!channelRepository.existsById(channelId)) {
+            throw new BadRequestException("Channel not found");
+        }
+        
+        Pageable page = PageRequest.of(0, clampHistoryLimit(limit));
+        List<MessageProjection> messages;
+        if (beforeMessageId != null) {
+            Message cursor = findCursor(channelId, beforeMessageId);
+            messages = messageRepository.findInChannelBefore(channelId, cursor.getCreatedAt(), cursor.getId(), page);
+        } else if (afterMessageId != null) {
+            Message cursor = findCursor(channelId, afterMessageId);
+            // Fetched oldest-first so the page starts right after the cursor, then flipped to newest-first
+            messages = new ArrayList<>(messageRepository.findInChannelAfter(channelId, cursor.getCreatedAt(), cursor.getId(), page));
+            Collections.reverse(messages);
+        } else {
+            messages = messageRepository.findLatestInChannel(channelId, page);
+        }
         
-        List<Message> messages = messageRepository.findByChannelOrderByCreatedAtDesc(channel);
         return messages.stream()
-                .map(this::convertToDTO)
+                .map(MessageProjection::toDTO)
                 .collect(Collectors.toList());
     }
     
     @Override
-    public List<MessageDTO> searchMessages(UUID channelId, String keyword) {
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new BadRequestException("Channel not found"));
+    @Transactional(readOnly = true)
+    public List<MessageDTO> searchMessages(UUID channelId, UUID serverId, String keyword, int page, int size) {
+        if ((channelId == null) == (serverId == null)) {
+            throw new BadRequestException("Specify exactly one of 'channelId' and 'serverId'");
+        }
+        if (keyword == null || keyword.isBlank()) {
+            throw new BadRequestException("Search keyword must not be empty");
+        }
         
-        List<Message> messages = messageRepository.findByChannelAndContextContainingIgnoreCase(channel, keyword);
-        return messages.stream()
-                .map(this::convertToDTO)
+        int limit = clampSearchSize(size);
+        long offset = (long) Math.max(page, 0) * limit;
+        
+        List<Long> rankedIds;
+        if (channelId != null) {
+            if (!channelRepository.existsById(channelId)) {
+                throw new BadRequestException("Channel not found");
+            }
+            rankedIds = messageRepository.searchIdsInChannel(channelId, keyword, limit, offset);
+        } else {
+            if (!serverRepository.existsById(serverId)) {
+                throw new BadRequestException("Server not found");
+            }
+            rankedIds = messageRepository.searchIdsInServer(serverId, keyword, limit, offset);
+        }
+        
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        
+        // Re-apply the rank order, the id lookup returns rows in arbitrary order
+        Map<Long, MessageProjection> byId = messageRepository.findProjectionsByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(MessageProjection::id, Function.identity()));
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(MessageProjection::toDTO)
                 .collect(Collectors.toList());
     }
     
-    private String determineStrategyType(Channel channel) {
-        return switch (channel.getType()) {
+    /**
+     * Check that the channel exists and that the user may post to it (member and not muted, or DM participant)
+     */
+    private ChannelRoute resolveWritableChannel(UUID channelId, UUID userId, UserDTO authorProfile) {
+        ChannelRoute route = membershipCache.getChannelRoute(channelId)
+                .orElseThrow(() -> new BadRequestException("Channel not found"));
+        
+        if (route.serverId() != null) {
+
+            MembershipSnapshot membership = membershipCache.getMembership(userId, route.serverId())
+                    .orElseThrow(() -> new BadRequestException("User is not a member of this server"));
+
+            if (membership.isMutedAt(LocalDateTime.now())) {
+                log.warn("User {} tried to message but is muted until {}", authorProfile.getUsername(), membership.mutedUntil());
+                throw new BadRequestException("You are muted in this server until: " + membership.mutedUntil());
+            }
+        } else if (!membershipCache.getChannelParticipants(channelId).contains(userId)) {
+            throw new BadRequestException("User is not a participant of this channel");
+        }
+        return route;
+    }
+    
+    private int clampHistoryLimit(int limit) {
+        if (limit <= 0) {
+            return DEFAULT_HISTORY_LIMIT;
+        }
+        return Math.min(limit, MAX_HISTORY_LIMIT);
+    }
+    
+    private int clampSearchSize(int size) {
+        if (size <= 0) {
+            return DEFAULT_SEARCH_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_SEARCH_PAGE_SIZE);
+    }
+    
+    private Message findCursor(UUID channelId, Long messageId) {
+        Message cursor = messageRepository.findById(messageId)
+                .orElseThrow(() -> new BadRequestException("Cursor message not found"));
+        if (!cursor.getChannel().getId().equals(channelId)) {
+            throw new BadRequestException("Cursor message does not belong to this channel");
+        }
+        return cursor;
+    }
+    
+    private String determineStrategyType(ChannelRoute route) {
+        return switch (route.type()) {
             case DM -> "PRIVATE";
             case ANNOUNCEMENT -> "ANNOUNCEMENT";
             default -> "CHANNEL";
         };
     }
     
-    private List<User> getChannelMembers(Channel channel) {
-        if (channel.getServer() != null) {
-            return membershipRepository.findByServer(channel.getServer())
-                    .stream()
-                    .map(membership -> membership.getUser())
-                    .collect(Collectors.toList());
-        }
-        return List.of();
-    }
-    
     private boolean isServerOwner(UUID userId, com.example.chatapp.entity.Server server) {
         return server != null && server.getOwner().getId().equals(userId);
     }
@@ -175,6 +312,10 @@ public class MessageServiceImpl implements MessageService {
             message.getAuthor().getAvatarUrl()
         );
         
+        return convertToDTO(message, authorDTO);
+    }
+    
+    private MessageDTO convertToDTO(Message message, UserDTO authorDTO) {
         return new MessageDTO(
             message.getId(),
             message.getChannel().getId(),
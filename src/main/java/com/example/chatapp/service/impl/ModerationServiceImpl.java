@@ -1,5 +1,6 @@
 package com.example.chatapp.service.impl;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.entity.Channel;
 import com.example.chatapp.entity.Membership;
 import com.example.chatapp.entity.Message;
@@ -30,6 +31,7 @@ public class ModerationServiceImpl implements ModerationService {
     private final MembershipRepository membershipRepository;
     private final MessageRepository messageRepository;
     private final CommandInvoker commandInvoker;
+    private final MembershipCache membershipCache;
     
     @Override
     @Transactional
@@ -43,7 +45,7 @@ public class ModerationServiceImpl implements ModerationService {
         validateServerOwner(moderatorId, server);
         
         // Create and execute kick command
-        Command kickCommand = new KickUserCommand(targetUser, server, membershipRepository);
+        Command kickCommand = new KickUserCommand(targetUser, server, membershipRepository, membershipCache);
         commandInvoker.executeCommand(kickCommand);
     }
     
@@ -58,7 +60,7 @@ public class ModerationServiceImpl implements ModerationService {
         validateServerOwner(moderatorId, server);
         
         // Create and execute ban command
-        Command banCommand = new BanUserCommand(targetUser, server, membershipRepository);
+        Command banCommand = new BanUserCommand(targetUser, server, membershipRepository, membershipCache);
         commandInvoker.executeCommand(banCommand);
     }
     
@@ -76,7 +78,7 @@ public class ModerationServiceImpl implements ModerationService {
                 .orElseThrow(() -> new BadRequestException("User is not a member of this server"));
         
         // Create and execute mute command
-        Command muteCommand = new MuteUserCommand(targetUser, membership, membershipRepository, durationMinutes);
+        Command muteCommand = new MuteUserCommand(targetUser, membership, membershipRepository, membershipCache, durationMinutes);
         commandInvoker.executeCommand(muteCommand);
     }
     
@@ -103,7 +105,7 @@ public class ModerationServiceImpl implements ModerationService {
                 .orElseThrow(() -> new BadRequestException("Channel not found"));
         
         // Create and execute join command
-        Command joinCommand = new JoinChannelCommand(user, channel, membershipRepository);
+        Command joinCommand = new JoinChannelCommand(user, channel, membershipRepository, membershipCache);
         commandInvoker.executeCommand(joinCommand);
     }
     
@@ -0,0 +1,170 @@
+package com.example.chatapp.service.impl;
+
+import com.example.chatapp.broadcast.SessionSender;
+import com.example.chatapp.dto.MessageEventDTO;
+import com.example.chatapp.dto.MessageProjection;
+import com.example.chatapp.dto.OfflineBatchDTO;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.OfflineMessage;
+import com.example.chatapp.repository.MessageRepository;
+import com.example.chatapp.repository.OfflineMessageRepository;
+import com.example.chatapp.service.OfflineMessageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Durable per-user queue of direct messages that could not be pushed in real time.
+ * Each recipient keeps at most chat.offline.max-per-user entries (oldest dropped first)
+ * for at most chat.offline.ttl. Batches are written straight to the subscribing session
+ * (not through the broker), so they cannot race the subscription and never reach the
+ * user's other sessions twice; the next batch is sent only after the client acks.
+ */
+@Slf4j
+@Service
+public class OfflineMessageServiceImpl implements OfflineMessageService {
+    
+    private final OfflineMessageRepository offlineMessageRepository;
+    private final MessageRepository messageRepository;
+    private final SessionSender sessionSender;
+    
+    private final int maxPerUser;
+    private final Duration ttl;
+    private final int batchSize;
+    
+    private final Counter enqueued;
+    private final Counter delivered;
+    
+    public OfflineMessageServiceImpl(OfflineMessageRepository offlineMessageRepository,
+                                     MessageRepository messageRepository,
+                                     SessionSender sessionSender,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${chat.offline.max-per-user:1000}") int maxPerUser,
+                                     @Value("${chat.offline.ttl:P7D}") Duration ttl,
+                                     @Value("${chat.offline.batch-size:100}") int batchSize) {
+        this.offlineMessageRepository = offlineMessageRepository;
+        this.messageRepository = messageRepository;
+        this.sessionSender = sessionSender;
+        this.maxPerUser = maxPerUser;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.enqueued = Counter.builder("chat.offline.enqueued").register(meterRegistry);
+        this.delivered = Counter.builder("chat.offline.delivered").register(meterRegistry);
+    }
+    
+    public static String userQueue(UUID userId) {
+        return "/queue/user/" + userId;
+    }
+    
+    /**
+     * Called after the message's transaction commits, so it always writes in a transaction of its own
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void enqueue(Message message, Collection<UUID> recipientIds) {
+        if (recipientIds.isEmpty()) {
+            return;
+        }
+        
+        // The same message is never queued twice for a recipient
+        Set<UUID> alreadyQueued = new HashSet<>(
+                offlineMessageRepository.findQueuedRecipients(message.getId(), recipientIds));
+        LocalDateTime now = LocalDateTime.now();
+        List<OfflineMessage> entries = new ArrayList<>();
+        for (UUID recipientId : recipientIds) {
+            if (alreadyQueued.contains(recipientId)) {
+                continue;
+            }
+            OfflineMessage entry = new OfflineMessage();
+            entry.setRecipientId(recipientId);
+            entry.setMessageId(message.getId());
+            entry.setEnqueuedAt(now);
+            entry.setExpiresAt(now.plus(ttl));
+            entries.add(entry);
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        offlineMessageRepository.saveAllAndFlush(entries);
+        for (OfflineMessage entry : entries) {
+            offlineMessageRepository.trimToNewest(entry.getRecipientId(), maxPerUser);
+        }
+        enqueued.increment(entries.size());
+        log.info("Direct message {} queued for {} offline recipient(s)", message.getId(), entries.size());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void deliverNextBatch(UUID userId, String sessionId, String subscriptionId) {
+        List<OfflineMessage> pending = offlineMessageRepository.findPending(
+                userId, LocalDateTime.now(), PageRequest.of(0, batchSize + 1));
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        boolean hasMore = pending.size() > batchSize;
+        if (hasMore) {
+            pending = pending.subList(0, batchSize);
+        }
+        
+        Map<Long, MessageProjection> messages = messageRepository.findProjectionsByIdIn(
+                        pending.stream().map(OfflineMessage::getMessageId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(MessageProjection::id, Function.identity()));
+        
+        // Queue order is delivery order; messages deleted since they were queued are skipped
+        List<MessageEventDTO> events = pending.stream()
+                .map(entry -> messages.get(entry.getMessageId()))
+                .filter(projection -> projection != null)
+                .map(projection -> projection.toEventDTO("CREATED"))
+                .collect(Collectors.toList());
+        // Exact ids, skipped entries included: ids are not ordered by enqueue time across nodes
+        List<Long> ackIds = pending.stream().map(OfflineMessage::getId).collect(Collectors.toList());
+        
+        sessionSender.convertAndSend(sessionId, subscriptionId, userQueue(userId),
+                new OfflineBatchDTO(events, ackIds, hasMore));
+        
+        delivered.increment(events.size());
+        log.debug("Sent {} offline message(s) to session {}", events.size(), sessionId);
+    }
+    
+    @Override
+    @Transactional
+    public void acknowledge(UUID userId, List<Long> ackIds, String sessionId, String subscriptionId) {
+        if (ackIds != null && !ackIds.isEmpty()) {
+            // Never more than one batch per ack
+            offlineMessageRepository.deleteAcknowledged(userId, ackIds.subList(0, Math.min(ackIds.size(), batchSize)));
+        }
+        if (subscriptionId != null) {
+            deliverNextBatch(userId, sessionId, subscriptionId);
+        }
+    }
+    
+    @Transactional
+    @Scheduled(fixedDelayString = "${chat.offline.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = offlineMessageRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired offline message(s)", purged);
+        }
+    }
+}
@@ -1,70 +1,74 @@
 package com.example.chatapp.service.impl;
 
-import com.example.chatapp.entity.Membership;
-import com.example.chatapp.entity.Presence;
-import com.example.chatapp.entity.Server;
-import com.example.chatapp.entity.User;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.dto.UserDTO;
 import com.example.chatapp.enums.PresenceStatus;
 import com.example.chatapp.exception.BadRequestException;
-import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
-import com.example.chatapp.repository.MembershipRepository;
-import com.example.chatapp.repository.PresenceRepository;
-import com.example.chatapp.repository.ServerRepository;
-import com.example.chatapp.repository.UserRepository;
+import com.example.chatapp.presence.OnlineMemberIndex;
+import com.example.chatapp.presence.PresenceSnapshot;
+import com.example.chatapp.presence.PresenceStore;
 import com.example.chatapp.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
- * Service implementation that uses Singleton Pattern for WebSocket connection management
+ * Presence reads and writes are served from memory: PresenceStore for statuses,
+ * OnlineMemberIndex for who is online in a server
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PresenceServiceImpl implements PresenceService {
     
-    private final PresenceRepository presenceRepository;
-    private final UserRepository userRepository;
-    private final ServerRepository serverRepository;
-    private final MembershipRepository membershipRepository;
-    private final WebSocketConnectionManager connectionManager;
+    private static final int MAX_PAGE_SIZE = 1000;
+    
+    private final PresenceStore presenceStore;
+    private final MembershipCache membershipCache;
+    private final OnlineMemberIndex onlineMemberIndex;
     
     @Override
-    @Transactional
     public void updatePresence(UUID userId, String status) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BadRequestException("User not found"));
-        
-        Presence presence = presenceRepository.findByUser(user)
-                .orElse(new Presence());
-        
-        presence.setUser(user);
-        presence.setStatus(PresenceStatus.valueOf(status.toUpperCase()));
-        presence.setLastActiveAt(LocalDateTime.now());
+        PresenceStatus presenceStatus;
+        try {
+            presenceStatus = PresenceStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown presence status: " + status);
+        }
+        if (membershipCache.getUserProfile(userId).isEmpty()) {
+            throw new BadRequestException("User not found");
+        }
         
-        presenceRepository.save(presence);
+        // Memory only; PresenceStore writes it to the presence table in the next flush
+        presenceStore.update(userId, presenceStatus);
         
-        log.info("Presence updated for user {}: {}", userId, status);
+        log.debug("Presence updated for user {}: {}", userId, presenceStatus);
     }
     
     @Override
-    public List<User> getOnlineMembers(UUID serverId) {
-        Server server = serverRepository.findById(serverId)
-                .orElseThrow(() -> new BadRequestException("Server not found"));
-        
-        List<Membership> memberships = membershipRepository.findByServer(server);
-        
-        // Use Singleton WebSocketConnectionManager to check online status
-        return memberships.stream()
-                .map(Membership::getUser)
-                .filter(user -> connectionManager.isUserConnected(user.getId()))
+    public Optional<PresenceSnapshot> getPresence(UUID userId) {
+        return presenceStore.get(userId);
+    }
+    
+    @Override
+    public List<UserDTO> getOnlineMembers(UUID serverId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        // O(online): ids from the in-memory index, profiles from the cache
+        return onlineMemberIndex.onlinePage(serverId, page, size).stream()
+                .map(membershipCache::getUserProfile)
+                .flatMap(Optional::stream)
                 .collect(Collectors.toList());
     }
+    
+    @Override
+    public int countOnlineMembers(UUID serverId) {
+        return onlineMemberIndex.countOnline(serverId);
+    }
 }
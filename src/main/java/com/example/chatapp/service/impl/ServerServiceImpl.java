@@ -1,5 +1,6 @@
 package com.example.chatapp.service.impl;
 
+import com.example.chatapp.cache.MembershipCache;
 import com.example.chatapp.dto.CreateServerRequest;
 import com.example.chatapp.dto.ServerDTO;
 import com.example.chatapp.entity.Membership;
@@ -29,6 +30,7 @@ public class ServerServiceImpl implements ServerService {
     private final ServerRepository serverRepository;
     private final UserRepository userRepository;
     private final MembershipRepository membershipRepository;
+    private final MembershipCache membershipCache;
     
     @Override
     @Transactional
@@ -51,6 +53,7 @@ public class ServerServiceImpl implements ServerService {
         membership.setRole(MembershipRole.OWNER);
         membership.setJoinedAt(LocalDateTime.now());
         membershipRepository.save(membership);
+        membershipCache.evictMembership(owner.getId(), server.getId());
         
         log.info("Server created: {} by user: {}", server.getId(), userId);
         
@@ -96,6 +99,7 @@ public class ServerServiceImpl implements ServerService {
         membership.setRole(MembershipRole.MEMBER);
         membership.setJoinedAt(LocalDateTime.now());
         membershipRepository.save(membership);
+        membershipCache.evictMembership(userId, serverId);
         
         log.info("User {} joined server {}", userId, serverId);
     }
@@ -118,6 +122,7 @@ public class ServerServiceImpl implements ServerService {
                 .orElseThrow(() -> new BadRequestException("User is not a member of this server"));
         
         membershipRepository.delete(membership);
+        membershipCache.evictMembership(userId, serverId);
         
         log.info("User {} left server {}", userId, serverId);
     }
@@ -0,0 +1,36 @@
+package com.example.chatapp.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(0)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(0)).isFalse();
+
+        // One permit every 100 ms
+        assertThat(bucket.tryAcquire(SECOND / 10)).isTrue();
+        assertThat(bucket.tryAcquire(SECOND / 10)).isFalse();
+    }
+
+    @Test
+    void idleBucketIsFullAgain() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.isFull(0)).isFalse();
+        assertThat(bucket.isFull(SECOND)).isTrue();
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(SECOND)).isTrue();
+        }
+    }
+}
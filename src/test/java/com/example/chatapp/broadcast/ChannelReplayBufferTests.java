@@ -0,0 +1,77 @@
+package com.example.chatapp.broadcast;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelReplayBufferTests {
+
+    private static final String TOPIC = "/topic/channel/00000000-0000-0000-0000-000000000001";
+
+    private final ChannelReplayBuffer buffer = new ChannelReplayBuffer(new SimpleMeterRegistry(), 4, 2, "simple");
+    private final List<Message<byte[]>> sent = new ArrayList<>();
+
+    @Test
+    void framesAreNumberedPerTopic() {
+        publish(TOPIC, 3);
+
+        assertThat(sent).extracting(message -> StompHeaderAccessor.wrap(message)
+                .getFirstNativeHeader(ChannelReplayBuffer.SEQ_HEADER)).containsExactly("1", "2", "3");
+        assertThat(sent).extracting(message -> StompHeaderAccessor.wrap(message)
+                .getFirstNativeHeader(ChannelReplayBuffer.EPOCH_HEADER)).containsOnly(buffer.epochOf(TOPIC));
+    }
+
+    @Test
+    void gapInsideTheRingIsReplayedFromMemory() {
+        publish(TOPIC, 6);
+        String epoch = buffer.epochOf(TOPIC);
+
+        assertThat(buffer.since(TOPIC, epoch, 3)).hasValueSatisfying(gap ->
+                assertThat(gap).extracting(ChannelReplayBuffer.Entry::seq).containsExactly(4L, 5L, 6L));
+        assertThat(buffer.since(TOPIC, epoch, 6)).hasValueSatisfying(gap -> assertThat(gap).isEmpty());
+    }
+
+    @Test
+    void gapOutsideTheRingOrFromAnotherEpochIsNotReplayed() {
+        publish(TOPIC, 6);
+        String epoch = buffer.epochOf(TOPIC);
+
+        assertThat(buffer.since(TOPIC, epoch, 1)).isEmpty();
+        assertThat(buffer.since(TOPIC, "stale", 5)).isEmpty();
+        assertThat(buffer.since(TOPIC, epoch, 7)).isEmpty();
+    }
+
+    @Test
+    void leastRecentlyUsedChannelLosesItsRing() {
+        publish(TOPIC, 1);
+        publish(TOPIC + "/updates", 1);
+        publish("/topic/channel/00000000-0000-0000-0000-000000000002", 1);
+
+        assertThat(buffer.epochOf(TOPIC)).isNull();
+        assertThat(buffer.epochOf(TOPIC + "/updates")).isNotNull();
+    }
+
+    @Test
+    void relayModeSendsFramesWithoutSeqAndNeverReplays() {
+        ChannelReplayBuffer relay = new ChannelReplayBuffer(new SimpleMeterRegistry(), 4, 2, "relay");
+        relay.publish(TOPIC, new WireFrame("{}".getBytes(StandardCharsets.UTF_8)), sent::add);
+
+        assertThat(StompHeaderAccessor.wrap(sent.get(0)).getFirstNativeHeader(ChannelReplayBuffer.SEQ_HEADER)).isNull();
+        assertThat(relay.epochOf(TOPIC)).isNull();
+        assertThat(relay.since(TOPIC, "any", 0)).isEmpty();
+    }
+
+    private void publish(String destination, int count) {
+        for (int i = 0; i < count; i++) {
+            WireFrame frame = new WireFrame(("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+            buffer.publish(destination, frame, sent::add);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.dto.MessageEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode cost of a message event as JSON (the default wire format) versus CBOR,
+ * plus the JSON -> CBOR transcode WireFormatInterceptor does once per broadcast.
+ * Payload sizes are asserted by WireFormatTests; this only measures time.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.example.chatapp.broadcast.WireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+    
+    private ObjectMapper jsonMapper;
+    private CBORMapper cborMapper;
+    private MessageEventDTO event;
+    private byte[] json;
+    
+    @Setup
+    public void setUp() throws IOException {
+        // Same date handling as the application's ObjectMapper
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cborMapper = CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        event = new MessageEventDTO("CREATED", 123456789L, UUID.randomUUID(), UUID.randomUUID(),
+                "berk", "https://cdn.example.com/avatars/berk.png",
+                "On my way, be there in ten minutes. Did anyone grab the slides from yesterday?",
+                LocalDateTime.now(), null, 123456700L);
+        json = jsonMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return jsonMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public byte[] cborEncode() throws IOException {
+        return cborMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public byte[] jsonToCborTranscode() throws IOException {
+        return cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WireFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.chatapp.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WireFormatInterceptorTests {
+
+    private static final byte[] JSON = "{\"type\":\"CREATED\",\"messageId\":42}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final WireFormatInterceptor interceptor = new WireFormatInterceptor(jsonMapper, new SimpleMeterRegistry());
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void cborIsNegotiatedOnlyOnBinaryTransports() {
+        interceptor.preSend(connect(StompCommand.CONNECT, "binary", true), channel);
+        interceptor.preSend(connect(StompCommand.CONNECT, "sockjs", false), channel);
+
+        assertThat(interceptor.preSend(event("binary"), channel).getPayload()).isNotEqualTo(JSON);
+        assertThat(interceptor.preSend(event("sockjs"), channel).getPayload()).isEqualTo(JSON);
+    }
+
+    @Test
+    void stompCommandNegotiatesLikeConnect() {
+        interceptor.preSend(connect(StompCommand.STOMP, "binary", true), channel);
+
+        assertThat(interceptor.preSend(event("binary"), channel).getPayload()).isNotEqualTo(JSON);
+    }
+
+    @Test
+    void outboundEventIsRewrittenAsCborWithBinaryHeaders() throws Exception {
+        interceptor.preSend(connect(StompCommand.CONNECT, "binary", true), channel);
+
+        Message<?> sent = interceptor.preSend(event("binary"), channel);
+
+        assertThat(new CBORMapper().readTree((byte[]) sent.getPayload())).isEqualTo(jsonMapper.readTree(JSON));
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(sent);
+        assertThat(headers.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(headers.getFirstNativeHeader(WireFormatInterceptor.WIRE_FORMAT_HEADER)).isEqualTo(WireFormatInterceptor.CBOR);
+        assertThat(headers.getNativeHeader("contentType")).isNull();
+    }
+
+    private static Message<byte[]> connect(StompCommand command, String sessionId, boolean binaryTransport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setNativeHeader(WireFormatInterceptor.WIRE_FORMAT_HEADER, WireFormatInterceptor.CBOR);
+        Map<String, Object> attributes = new HashMap<>();
+        if (binaryTransport) {
+            attributes.put(WireFormatInterceptor.BINARY_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+        }
+        accessor.setSessionAttributes(attributes);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> event(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/channel/00000000-0000-0000-0000-000000000001");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(JSON, accessor.getMessageHeaders());
+    }
+}
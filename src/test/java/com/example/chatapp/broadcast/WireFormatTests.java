@@ -0,0 +1,66 @@
+package com.example.chatapp.broadcast;
+
+import com.example.chatapp.dto.MessageEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes on the wire for a typical message event, raw and after deflate (what permessage-deflate sends)
+ */
+class WireFormatTests {
+
+    // Same date handling as the application's ObjectMapper
+    private final ObjectMapper jsonMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    private final MessageEventDTO event = new MessageEventDTO("CREATED", 123456789L, UUID.randomUUID(), UUID.randomUUID(),
+            "berk", "https://cdn.example.com/avatars/berk.png",
+            "On my way, be there in ten minutes. Did anyone grab the slides from yesterday?",
+            LocalDateTime.now(), null, 123456700L);
+
+    @Test
+    void cborFrameIsSmallerThanJsonBeforeDeflate() throws IOException {
+        byte[] json = jsonMapper.writeValueAsBytes(event);
+        // What WireFormatInterceptor sends to CBOR sessions
+        byte[] cbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+
+        assertThat(cbor.length).isLessThan(json.length);
+        // Once deflated the two are close, so CBOR mainly pays off for clients without permessage-deflate
+        assertThat(deflatedSize(json)).isLessThan(json.length);
+        assertThat(deflatedSize(cbor)).isLessThan(cbor.length);
+    }
+
+    @Test
+    void transcodeIsLossless() throws IOException {
+        byte[] json = jsonMapper.writeValueAsBytes(event);
+        byte[] cbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+
+        assertThat(cborMapper.readTree(cbor)).isEqualTo(jsonMapper.readTree(json));
+    }
+
+    private static int deflatedSize(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.size();
+    }
+}
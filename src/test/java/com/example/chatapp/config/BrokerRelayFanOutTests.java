@@ -0,0 +1,179 @@
+package com.example.chatapp.config;
+
+import com.example.chatapp.ChatappApplication;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.repository.UserRepository;
+import com.example.chatapp.security.JwtUtil;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two app nodes in relay mode share one embedded STOMP broker (Artemis).
+ * A broadcast published on one node must reach subscribers connected to either node.
+ */
+class BrokerRelayFanOutTests {
+    
+    private static final long TIMEOUT_SECONDS = 15;
+    
+    @TempDir
+    static Path brokerDir;
+    
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static ThreadPoolTaskScheduler clientScheduler;
+    
+    @BeforeAll
+    static void startCluster() throws Exception {
+        int stompPort = freePort();
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setBrokerInstance(brokerDir.toFile());
+        configuration.setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort
+                        + "?protocols=STOMP;multicastPrefix=/topic/;anycastPrefix=/queue/");
+        broker = new EmbeddedActiveMQ().setConfiguration(configuration);
+        broker.start();
+        
+        nodeA = startNode("nodeA", stompPort);
+        nodeB = startNode("nodeB", stompPort);
+        
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.initialize();
+    }
+    
+    @AfterAll
+    static void stopCluster() throws Exception {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (clientScheduler != null) {
+            clientScheduler.shutdown();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+    
+    @Test
+    void broadcastFromOneNodeReachesSubscribersOnEveryNode() throws Exception {
+        // Channel topics need a membership, and each node has its own seeded channels
+        String destination = "/topic/public";
+        BlockingQueue<String> receivedOnA = new LinkedBlockingQueue<>();
+        BlockingQueue<String> receivedOnB = new LinkedBlockingQueue<>();
+        
+        StompSession sessionA = connect(nodeA);
+        StompSession sessionB = connect(nodeB);
+        subscribe(sessionA, destination, receivedOnA);
+        subscribe(sessionB, destination, receivedOnB);
+        
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSend(destination, "hello from A");
+        
+        assertThat(receivedOnA.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("hello from A");
+        assertThat(receivedOnB.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("hello from A");
+        
+        // Each subscriber gets the broadcast once, not once per node
+        assertThat(receivedOnA.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(receivedOnB.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        
+        sessionA.disconnect();
+        sessionB.disconnect();
+    }
+    
+    private static ConfigurableApplicationContext startNode(String name, int stompPort) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatappApplication.class)
+                .profiles("h2")
+                // Command-line arguments, so they win over application.properties
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name
+                                + ";MODE=PostgreSQL;INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+                        "--chat.websocket.broker=relay",
+                        "--chat.websocket.relay.host=127.0.0.1",
+                        "--chat.websocket.relay.port=" + stompPort,
+                        "--chat.node-id=" + name,
+                        "--logging.level.org.apache.activemq=WARN");
+        
+        // The relay connects its system session asynchronously after startup
+        AbstractBrokerMessageHandler relay = context.getBean("stompBrokerRelayMessageHandler", AbstractBrokerMessageHandler.class);
+        assertThat(relay).isInstanceOf(StompBrokerRelayMessageHandler.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!relay.isBrokerAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(relay.isBrokerAvailable()).isTrue();
+        return context;
+    }
+    
+    private static StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        User user = node.getBean(UserRepository.class).findByEmail("berk@test.com").orElseThrow();
+        String token = node.getBean(JwtUtil.class).generateToken(user);
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.add("Authorization", "Bearer " + token);
+        
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new StringMessageConverter());
+        client.setTaskScheduler(clientScheduler);
+        return client.connectAsync("ws://localhost:" + port + "/ws/websocket", headers, new StompSessionHandlerAdapter() {
+        }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    private static void subscribe(StompSession session, String destination, BlockingQueue<String> sink) throws Exception {
+        // Wait for the broker's RECEIPT so the subscription is live before anything is published
+        CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        session.setAutoReceipt(true);
+        StompSession.Subscription subscription = session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+            
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                sink.add((String) payload);
+            }
+        });
+        subscription.addReceiptTask(() -> subscribed.complete(null));
+        subscribed.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chatapp.notification;
+
+import com.example.chatapp.entity.Notification;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.NotificationType;
+import com.example.chatapp.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NotificationWriterTests {
+
+    private static final int RECIPIENTS = 25;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void fanOutIsWrittenInChunksAndReadableThroughTheRepository() {
+        User sender = entityManager.persist(newUser("sender"));
+        List<User> recipients = new ArrayList<>();
+        List<PendingNotification> pending = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            User recipient = entityManager.persist(newUser("member" + i));
+            recipients.add(recipient);
+            pending.add(new PendingNotification(recipient.getId(), sender.getId(), NotificationType.MENTION, null, null, null));
+        }
+        entityManager.flush();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationWriter writer = new NotificationWriter(jdbcTemplate, transactionTemplate, meterRegistry, 10);
+
+        assertThat(writer.write(pending)).isEqualTo(RECIPIENTS);
+        assertThat(meterRegistry.timer("chat.notifications.write").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("chat.notifications.created").count()).isEqualTo(RECIPIENTS);
+
+        entityManager.clear();
+        List<Notification> unread = notificationRepository.findByRecipientAndIsReadFalse(recipients.get(7));
+        assertThat(unread).singleElement().satisfies(notification -> {
+            assertThat(notification.getType()).isEqualTo(NotificationType.MENTION);
+            assertThat(notification.getSender().getId()).isEqualTo(sender.getId());
+            assertThat(notification.getCreatedAt()).isNotNull();
+        });
+    }
+
+    private static User newUser(String username) {
+        return User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("secret")
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.chatapp.pattern.observer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationObserverTests {
+
+    @Test
+    void mentionsAreParsedWithoutEmailAddressesOrTrailingPunctuation() {
+        assertThat(NotificationObserver.mentionedUsernames("hey @alice, @bob. and @alice again; mail bob@test.com @everyone!"))
+                .containsExactly("alice", "bob", NotificationObserver.EVERYONE);
+        assertThat(NotificationObserver.mentionedUsernames("no mentions here")).isEmpty();
+        assertThat(NotificationObserver.mentionedUsernames(null)).isEmpty();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chatapp.pattern.observer;
+
+import com.example.chatapp.entity.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObserverDispatcherTests {
+
+    private static final int EVENTS = 2000;
+
+    @Test
+    void eventsOfOneKeyAreHandledInOrderAndBlockLosesNothing() {
+        List<Long> deleted = Collections.synchronizedList(new ArrayList<>());
+        MessageObserver observer = new MessageObserver() {
+            @Override
+            public void onMessageCreated(Message message) {
+            }
+
+            @Override
+            public void onMessageUpdated(Message message) {
+            }
+
+            @Override
+            public void onMessageDeleted(Long messageId) {
+                deleted.add(messageId);
+            }
+        };
+        // Queues far smaller than the burst, so the publisher has to wait for room
+        ObserverDispatcher dispatcher = new ObserverDispatcher(observer, 4, 8, false,
+                ObserverDispatcher.OverflowPolicy.BLOCK, new SimpleMeterRegistry());
+
+        UUID channelId = UUID.randomUUID();
+        for (long id = 0; id < EVENTS; id++) {
+            long messageId = id;
+            dispatcher.dispatch(channelId, o -> o.onMessageDeleted(messageId));
+        }
+        dispatcher.shutdown();
+
+        assertThat(deleted).hasSize(EVENTS).isSorted();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.chatapp.pattern.singleton;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two registries sharing one database stand in for two app nodes.
+ */
+@JdbcTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JdbcConnectionRegistryTests {
+    
+    private static final Duration NODE_TIMEOUT = Duration.ofSeconds(30);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private JdbcConnectionRegistry nodeA;
+    private JdbcConnectionRegistry nodeB;
+    
+    @BeforeEach
+    void setUp() {
+        nodeA = new JdbcConnectionRegistry(jdbcTemplate, "node-a", NODE_TIMEOUT);
+        nodeB = new JdbcConnectionRegistry(jdbcTemplate, "node-b", NODE_TIMEOUT);
+        nodeA.init();
+        nodeB.init();
+    }
+    
+    @Test
+    void userStaysOnlineUntilLastSessionOnAnyNodeCloses() {
+        UUID user = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        
+        // Same session id on both nodes: ids are only unique per node
+        nodeA.register(user, "0");
+        nodeB.register(user, "0");
+        
+        assertThat(nodeB.isConnected(user)).isTrue();
+        assertThat(nodeA.getLocalSessionIds(user)).containsExactly("0");
+        assertThat(nodeA.getSessionCount()).isEqualTo(2);
+        assertThat(nodeA.filterConnected(List.of(user, other))).containsExactly(user);
+        
+        assertThat(nodeA.unregister("0")).isEqualTo(user);
+        assertThat(nodeA.isConnected(user)).isTrue();
+        assertThat(nodeA.getLocalSessionIds(user)).isEmpty();
+        
+        assertThat(nodeB.unregister("0")).isEqualTo(user);
+        assertThat(nodeA.isConnected(user)).isFalse();
+        assertThat(nodeA.getConnectedUserIds()).isEqualTo(Set.of());
+    }
+    
+    @Test
+    void restartedNodeDropsItsStaleSessions() {
+        UUID user = UUID.randomUUID();
+        nodeA.register(user, "1");
+        
+        // node-a crashes without cleanup and comes back
+        new JdbcConnectionRegistry(jdbcTemplate, "node-a", NODE_TIMEOUT).init();
+        
+        assertThat(nodeB.isConnected(user)).isFalse();
+    }
+    
+    @Test
+    void sessionsOfANodeThatStoppedHeartbeatingExpire() {
+        UUID user = UUID.randomUUID();
+        JdbcConnectionRegistry crashed = new JdbcConnectionRegistry(jdbcTemplate, "node-c", NODE_TIMEOUT);
+        crashed.init();
+        crashed.register(user, "1");
+        
+        // node-c dies for good (new HOSTNAME on restart); its last heartbeat ages past the timeout
+        jdbcTemplate.update("UPDATE ws_nodes SET heartbeat_at = DATEADD('MINUTE', -5, CURRENT_TIMESTAMP) WHERE node_id = 'node-c'");
+        
+        assertThat(nodeA.isConnected(user)).isFalse();
+        assertThat(nodeA.filterConnected(List.of(user))).isEmpty();
+        
+        nodeA.heartbeat();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ws_sessions WHERE node_id = 'node-c'", Integer.class)).isZero();
+    }
+    
+    @Test
+    void nodeExpiredByMistakeRestoresItsSessions() {
+        UUID user = UUID.randomUUID();
+        nodeB.register(user, "1");
+        jdbcTemplate.update("UPDATE ws_nodes SET heartbeat_at = DATEADD('MINUTE', -5, CURRENT_TIMESTAMP) WHERE node_id = 'node-b'");
+        nodeA.heartbeat();
+        assertThat(nodeA.isConnected(user)).isFalse();
+        
+        // node-b was only paused
+        nodeB.heartbeat();
+        assertThat(nodeA.isConnected(user)).isTrue();
+    }
+}
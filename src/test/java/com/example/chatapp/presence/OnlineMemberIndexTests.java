@@ -0,0 +1,103 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.cache.MembershipSnapshot;
+import com.example.chatapp.enums.MembershipRole;
+import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.pattern.singleton.WebSocketConnectionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OnlineMemberIndexTests {
+
+    private final UUID server = UUID.randomUUID();
+    private final UUID otherServer = UUID.randomUUID();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private final MembershipCache membershipCache = mock(MembershipCache.class);
+    private final WebSocketConnectionManager connectionManager = mock(WebSocketConnectionManager.class);
+    private final PresenceStore presenceStore = mock(PresenceStore.class);
+
+    private OnlineMemberIndex index;
+    private BiConsumer<UUID, UUID> membershipListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(membershipCache.getUserServerIds(alice)).thenReturn(Set.of(server, otherServer));
+        when(membershipCache.getUserServerIds(bob)).thenReturn(Set.of(server));
+        index = new OnlineMemberIndex(membershipCache, connectionManager, presenceStore, new SimpleMeterRegistry());
+
+        ArgumentCaptor<BiConsumer<UUID, UUID>> listener = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(membershipCache).addEvictionListener(listener.capture());
+        membershipListener = listener.getValue();
+    }
+
+    @Test
+    void tracksOnlineMembersPerServer() {
+        index.userOnline(alice);
+        index.userOnline(bob);
+
+        assertThat(index.countOnline(server)).isEqualTo(2);
+        assertThat(index.countOnline(otherServer)).isEqualTo(1);
+        assertThat(index.onlinePage(server, 0, 1)).hasSize(1);
+        assertThat(index.onlinePage(server, 1, 1)).hasSize(1).doesNotContainAnyElementsOf(index.onlinePage(server, 0, 1));
+
+        index.userOffline(alice);
+
+        assertThat(index.onlineMembers(server)).containsExactly(bob);
+        assertThat(index.countOnline(otherServer)).isZero();
+    }
+
+    @Test
+    void followsMembershipChangesOfOnlineUsers() {
+        index.userOnline(bob);
+        UUID joined = UUID.randomUUID();
+        when(membershipCache.getMembership(bob, joined))
+                .thenReturn(Optional.of(new MembershipSnapshot(MembershipRole.MEMBER, null)));
+        when(membershipCache.getMembership(bob, server)).thenReturn(Optional.empty());
+
+        membershipListener.accept(bob, joined);
+        membershipListener.accept(bob, server);
+
+        assertThat(index.onlineMembers(joined)).containsExactly(bob);
+        assertThat(index.countOnline(server)).isZero();
+    }
+
+    @Test
+    void reconcileFollowsTheConnectionRegistry() {
+        index.userOnline(alice);
+        when(connectionManager.getActiveUserIds()).thenReturn(Set.of(bob));
+
+        index.reconcile();
+
+        assertThat(index.onlineMembers(server)).containsExactly(bob);
+        assertThat(index.countOnline(otherServer)).isZero();
+    }
+
+    @Test
+    void reconcileLeavesOutConnectedUsersWhoAreOffline() {
+        index.userOnline(bob);
+        when(connectionManager.getActiveUserIds()).thenReturn(Set.of(alice, bob));
+        when(presenceStore.get(bob)).thenReturn(Optional.of(new PresenceSnapshot(bob, PresenceStatus.OFFLINE, LocalDateTime.now())));
+        when(presenceStore.get(alice)).thenReturn(Optional.empty());
+
+        index.reconcile();
+
+        assertThat(index.onlineMembers(server)).containsExactly(alice);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.chatapp.presence;
+
+import com.example.chatapp.entity.Presence;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.PresenceStatus;
+import com.example.chatapp.repository.PresenceRepository;
+import com.example.chatapp.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PresenceStore.class, PresenceStoreTests.Metrics.class})
+class PresenceStoreTests {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PresenceStore presenceStore;
+
+    @Autowired
+    private PresenceRepository presenceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void updatesBetweenFlushesAreCoalescedIntoOneWrite() {
+        User user = entityManager.persistAndFlush(User.builder()
+                .username("presence")
+                .email("presence@test.com")
+                .password("secret")
+                .build());
+
+        DistributionSummary batches = meterRegistry.get("chat.presence.flush.batch").summary();
+        long flushesBefore = batches.count();
+        double rowsBefore = batches.totalAmount();
+
+        presenceStore.update(user.getId(), PresenceStatus.ONLINE);
+        presenceStore.update(user.getId(), PresenceStatus.IDLE);
+        presenceStore.update(user.getId(), PresenceStatus.DND);
+        assertThat(presenceRepository.count()).isZero();
+
+        presenceStore.flush();
+        entityManager.flush();
+        entityManager.clear();
+
+        Presence stored = presenceRepository.findById(user.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(PresenceStatus.DND);
+        assertThat(batches.totalAmount() - rowsBefore).isEqualTo(1);
+
+        // Nothing dirty: the next flush writes nothing
+        presenceStore.flush();
+        assertThat(batches.count() - flushesBefore).isEqualTo(1);
+    }
+
+    @Test
+    void storeIsRebuiltFromTheTable() {
+        User user = entityManager.persistAndFlush(User.builder()
+                .username("returning")
+                .email("returning@test.com")
+                .password("secret")
+                .build());
+        presenceStore.update(user.getId(), PresenceStatus.IDLE);
+        presenceStore.flush();
+        entityManager.flush();
+
+        PresenceStore restarted = new PresenceStore(presenceRepository, userRepository, transactionTemplate,
+                new SimpleMeterRegistry(), 500);
+        restarted.load();
+
+        assertThat(restarted.get(user.getId()))
+                .hasValueSatisfying(snapshot -> assertThat(snapshot.status()).isEqualTo(PresenceStatus.IDLE));
+    }
+}
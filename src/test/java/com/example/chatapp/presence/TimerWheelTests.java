@@ -0,0 +1,61 @@
+package com.example.chatapp.presence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTests {
+
+    @Test
+    void timersFireOnTheirTickAcrossAllWheels() {
+        TimerWheel<Long> wheel = new TimerWheel<>(1000, 0);
+        Random random = new Random(42);
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Up to ~3 days, so every wheel level is used
+            long delay = 1000L * (1 + random.nextInt(260_000));
+            delays.add(delay);
+            wheel.schedule((long) i, delay);
+        }
+
+        long[] firedAt = new long[delays.size()];
+        for (long now = 0; now <= 260_001_000L; now += 1000) {
+            for (Long key : wheel.advance(now)) {
+                firedAt[key.intValue()] = now;
+            }
+        }
+
+        for (int i = 0; i < delays.size(); i++) {
+            assertThat(firedAt[i]).as("timer %d", i).isEqualTo(delays.get(i));
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        TimerWheel<String> wheel = new TimerWheel<>(1000, 0);
+        wheel.schedule("a", 5_000);
+        wheel.schedule("b", 5_000);
+        wheel.schedule("a", 70_000);
+        wheel.cancel("b");
+
+        assertThat(wheel.advance(69_000)).isEmpty();
+        assertThat(wheel.advance(70_000)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void largeClockJumpFiresEverythingDue() {
+        TimerWheel<String> wheel = new TimerWheel<>(1000, 0);
+        wheel.schedule("soon", 2_000);
+        wheel.schedule("later", 10_000_000);
+        wheel.schedule("never", 100_000_000);
+
+        assertThat(wheel.advance(20_000_000)).containsExactly("soon", "later");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+}
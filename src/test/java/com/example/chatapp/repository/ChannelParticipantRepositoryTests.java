@@ -0,0 +1,62 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.ChannelParticipant;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.ChannelType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChannelParticipantRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChannelParticipantRepository channelParticipantRepository;
+
+    @Test
+    void directChannelIsFoundOnlyForItsTwoParticipants() {
+        User alice = entityManager.persist(newUser("alice"));
+        User bob = entityManager.persist(newUser("bob"));
+        User carol = entityManager.persist(newUser("carol"));
+        Channel dm = newDirectChannel(alice, bob);
+        Channel group = newDirectChannel(alice, bob, carol);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(channelParticipantRepository.findDirectChannelIds(alice.getId(), bob.getId())).containsExactly(dm.getId());
+        assertThat(channelParticipantRepository.findDirectChannelIds(bob.getId(), alice.getId())).containsExactly(dm.getId());
+        assertThat(channelParticipantRepository.findDirectChannelIds(alice.getId(), carol.getId())).isEmpty();
+        assertThat(channelParticipantRepository.findUserIdsByChannelId(group.getId()))
+                .containsExactlyInAnyOrder(alice.getId(), bob.getId(), carol.getId());
+    }
+
+    private Channel newDirectChannel(User... participants) {
+        Channel channel = new Channel();
+        channel.setName("dm");
+        channel.setType(ChannelType.DM);
+        channel = entityManager.persist(channel);
+        for (User participant : participants) {
+            entityManager.persist(new ChannelParticipant(null, channel, participant, null));
+        }
+        return channel;
+    }
+
+    private static User newUser(String username) {
+        return User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("secret")
+                .build();
+    }
+}
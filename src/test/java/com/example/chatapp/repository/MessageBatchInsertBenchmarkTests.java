@@ -0,0 +1,121 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.Server;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.ChannelType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the single-message insert path (one flush per message, as one HTTP call per message does)
+ * with the batch path (saveAll + one flush) that backs POST /api/messages/batch.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MessageBatchInsertBenchmarkTests {
+
+    private static final int MESSAGES = 2000;
+    // hibernate.jdbc.batch_size and the messages_seq allocation size
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private User author;
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        author = entityManager.persist(User.builder()
+                .username("bot")
+                .email("bot@test.com")
+                .password("secret")
+                .build());
+
+        Server server = new Server();
+        server.setName("server");
+        server.setOwner(author);
+        entityManager.persist(server);
+
+        channel = new Channel();
+        channel.setName("imports");
+        channel.setType(ChannelType.TEXT);
+        channel.setServer(server);
+        channel = entityManager.persist(channel);
+        entityManager.flush();
+    }
+
+    @Test
+    void batchInsertUsesFarFewerStatementsThanSingleInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Warm up both paths so connection and sequence setup do not skew the comparison
+        insertOneByOne(200);
+        insertAsBatch(200);
+        entityManager.clear();
+
+        statistics.clear();
+        insertOneByOne(MESSAGES);
+        long singleStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        statistics.clear();
+        insertAsBatch(MESSAGES);
+        long batchStatements = statistics.getPrepareStatementCount();
+        long batchInserts = statistics.getEntityInsertCount();
+
+        assertThat(messageRepository.count()).isEqualTo(2L * MESSAGES + 400);
+        assertThat(batchInserts).isEqualTo(MESSAGES);
+        // One insert per JDBC batch plus one sequence call per id block, both sized BATCH_SIZE
+        assertThat(batchStatements).isLessThanOrEqualTo(2L * MESSAGES / BATCH_SIZE);
+        assertThat(batchStatements).isLessThan(singleStatements / 10);
+    }
+
+    private void insertOneByOne(int count) {
+        for (int i = 0; i < count; i++) {
+            messageRepository.save(newMessage(i));
+            // Each single-message request runs in its own persistence context
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private void insertAsBatch(int count) {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(newMessage(i));
+        }
+        messageRepository.saveAll(messages);
+        entityManager.flush();
+    }
+
+    private Message newMessage(int i) {
+        Message message = new Message();
+        message.setChannel(channel);
+        message.setAuthor(author);
+        message.setContext("imported message " + i);
+        return message;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.dto.MessageDTO;
+import com.example.chatapp.dto.MessageProjection;
+import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.Server;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.ChannelType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MessageRepositoryQueryCountTests {
+
+    private static final int PAGE_SIZE = 500;
+    private static final long MAX_STATEMENTS_PER_PAGE = 1;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private UUID channelId;
+
+    @BeforeEach
+    void setUp() {
+        User[] authors = new User[5];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = entityManager.persist(User.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@test.com")
+                    .password("secret")
+                    .avatarUrl("https://example.com/" + i + ".png")
+                    .build());
+        }
+
+        Server server = new Server();
+        server.setName("server");
+        server.setOwner(authors[0]);
+        entityManager.persist(server);
+
+        Channel channel = new Channel();
+        channel.setName("general");
+        channel.setType(ChannelType.TEXT);
+        channel.setServer(server);
+        channel = entityManager.persist(channel);
+        channelId = channel.getId();
+
+        Message previous = null;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Message message = new Message();
+            message.setChannel(channel);
+            message.setAuthor(authors[i % authors.length]);
+            message.setContext("message " + i);
+            message.setReplyToMessage(i % 3 == 0 ? previous : null);
+            previous = entityManager.persist(message);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void channelHistoryPageIsLoadedWithBoundedQueryCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<MessageDTO> page = messageRepository.findLatestInChannel(channelId, PageRequest.of(0, PAGE_SIZE))
+                .stream()
+                .map(MessageProjection::toDTO)
+                .collect(Collectors.toList());
+
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(page).allSatisfy(dto -> {
+            assertThat(dto.channelId()).isEqualTo(channelId);
+            assertThat(dto.author().getUsername()).startsWith("user");
+            assertThat(dto.author().getAvatarUrl()).isNotNull();
+        });
+        assertThat(page).anySatisfy(dto -> assertThat(dto.replyToMessageId()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.chatapp.repository;
+
+import com.example.chatapp.config.MessageSearchIndexInitializer;
+import com.example.chatapp.entity.Channel;
+import com.example.chatapp.entity.Message;
+import com.example.chatapp.entity.Server;
+import com.example.chatapp.entity.User;
+import com.example.chatapp.enums.ChannelType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranked full-text search against the configured PostgreSQL database (tsvector and ts_rank
+ * have no H2 equivalent); skipped when that database is not reachable.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(MessageSearchIndexInitializer.class)
+@EnabledIf("postgresReachable")
+class MessageSearchRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private Server server;
+    private Channel general;
+    private Channel random;
+    private Message bestMatch;
+    private Message weakMatch;
+    private Message otherChannelMatch;
+
+    @BeforeEach
+    void setUp() {
+        User author = entityManager.persist(User.builder()
+                .username("searcher")
+                .email("searcher@test.com")
+                .password("secret")
+                .build());
+
+        server = new Server();
+        server.setName("server");
+        server.setOwner(author);
+        entityManager.persist(server);
+
+        general = channel("general");
+        random = channel("random");
+
+        bestMatch = message(general, author, "deploy the deploy script before the deploy window");
+        weakMatch = message(general, author, "remember to deploy tomorrow after lunch with the whole team");
+        message(general, author, "nothing relevant here");
+        otherChannelMatch = message(random, author, "deploy notes");
+        entityManager.flush();
+    }
+
+    @Test
+    void channelSearchReturnsMatchesBestFirst() {
+        List<Long> ids = messageRepository.searchIdsInChannel(general.getId(), "deploy", 10, 0);
+
+        assertThat(ids).containsExactly(bestMatch.getId(), weakMatch.getId());
+    }
+
+    @Test
+    void serverSearchCoversAllChannelsAndPages() {
+        assertThat(messageRepository.searchIdsInServer(server.getId(), "deploy", 10, 0))
+                .containsExactlyInAnyOrder(bestMatch.getId(), weakMatch.getId(), otherChannelMatch.getId());
+        assertThat(messageRepository.searchIdsInServer(server.getId(), "deploy", 2, 2)).hasSize(1);
+        assertThat(messageRepository.searchIdsInServer(server.getId(), "absent", 10, 0)).isEmpty();
+    }
+
+    private Channel channel(String name) {
+        Channel channel = new Channel();
+        channel.setName(name);
+        channel.setType(ChannelType.TEXT);
+        channel.setServer(server);
+        return entityManager.persist(channel);
+    }
+
+    private Message message(Channel channel, User author, String content) {
+        Message message = new Message();
+        message.setChannel(channel);
+        message.setAuthor(author);
+        message.setContext(content);
+        return entityManager.persist(message);
+    }
+
+    static boolean postgresReachable() {
+        try {
+            Properties properties = PropertiesLoaderUtils.loadAllProperties("application.properties");
+            DriverManager.setLoginTimeout(2);
+            try (Connection ignored = DriverManager.getConnection(properties.getProperty("spring.datasource.url"),
+                    properties.getProperty("spring.datasource.username"),
+                    properties.getProperty("spring.datasource.password"))) {
+                return true;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
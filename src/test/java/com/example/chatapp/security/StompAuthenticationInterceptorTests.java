@@ -0,0 +1,179 @@
+package com.example.chatapp.security;
+
+import com.example.chatapp.cache.ChannelRoute;
+import com.example.chatapp.cache.MembershipCache;
+import com.example.chatapp.cache.MembershipSnapshot;
+import com.example.chatapp.enums.ChannelType;
+import com.example.chatapp.enums.MembershipRole;
+import com.example.chatapp.repository.MembershipRepository;
+import com.example.chatapp.repository.UserRepository;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StompAuthenticationInterceptorTests {
+
+    private static final String TOKEN = "token";
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID server = UUID.randomUUID();
+    private final UUID otherServer = UUID.randomUUID();
+    private final UUID textChannel = UUID.randomUUID();
+    private final UUID directChannel = UUID.randomUUID();
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final MembershipRepository membershipRepository = mock(MembershipRepository.class);
+    private final MembershipCache membershipCache = mock(MembershipCache.class);
+    private final MessageChannel brokerChannel = mock(MessageChannel.class);
+    private final MessageChannel inbound = mock(MessageChannel.class);
+
+    private StompAuthenticationInterceptor interceptor;
+    private BiConsumer<UUID, UUID> membershipListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(jwtUtil.verify(TOKEN)).thenReturn(new JwtPrincipal("alice@test.com", alice, "alice", Instant.now().plusSeconds(60)));
+        when(jwtUtil.verify("forged")).thenThrow(new JwtException("bad signature"));
+        when(membershipRepository.findServerIdsByUserId(alice)).thenReturn(List.of(server));
+        when(membershipCache.getMembership(any(), any())).thenReturn(Optional.empty());
+        when(membershipCache.getChannelRoute(textChannel)).thenReturn(Optional.of(new ChannelRoute(textChannel, server, ChannelType.TEXT)));
+        when(membershipCache.getChannelRoute(directChannel)).thenReturn(Optional.of(new ChannelRoute(directChannel, null, ChannelType.DM)));
+        when(membershipCache.getChannelParticipants(directChannel)).thenReturn(Set.of(bob, UUID.randomUUID()));
+
+        interceptor = new StompAuthenticationInterceptor(jwtUtil, mock(UserRepository.class), membershipRepository,
+                membershipCache, new SimpleMeterRegistry(), brokerChannel);
+
+        ArgumentCaptor<BiConsumer<UUID, UUID>> listener = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(membershipCache).addEvictionListener(listener.capture());
+        membershipListener = listener.getValue();
+    }
+
+    @Test
+    void connectWithoutValidTokenIsRejected() {
+        assertThatThrownBy(() -> interceptor.preSend(connect(null), inbound))
+                .isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> interceptor.preSend(connect("Bearer forged"), inbound))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void connectWithValidTokenSetsPrincipal() {
+        StompPrincipal principal = connectAlice();
+
+        assertThat(principal.userId()).isEqualTo(alice);
+        assertThat(principal.serverIds()).containsExactly(server);
+    }
+
+    @Test
+    void directChannelTopicIsDeniedToNonParticipants() {
+        StompPrincipal principal = connectAlice();
+
+        assertThatThrownBy(() -> subscribe(principal, "sub-1", "/topic/channel/" + directChannel))
+                .isInstanceOf(MessageDeliveryException.class);
+        subscribe(principal, "sub-2", "/topic/channel/" + textChannel);
+    }
+
+    @Test
+    void anotherUsersQueueIsDenied() {
+        StompPrincipal principal = connectAlice();
+
+        assertThatThrownBy(() -> subscribe(principal, "sub-1", "/queue/user/" + bob))
+                .isInstanceOf(MessageDeliveryException.class);
+        subscribe(principal, "sub-2", "/queue/user/" + alice);
+    }
+
+    @Test
+    void serverPresenceTopicIsDeniedToNonMembers() {
+        StompPrincipal principal = connectAlice();
+
+        assertThatThrownBy(() -> subscribe(principal, "sub-1", "/topic/server/" + otherServer + "/presence"))
+                .isInstanceOf(MessageDeliveryException.class);
+        subscribe(principal, "sub-2", "/topic/server/" + server + "/presence");
+    }
+
+    @Test
+    void revokedMembershipUnsubscribesOnlyItsSubscriptions() {
+        when(membershipCache.getChannelParticipants(directChannel)).thenReturn(Set.of(alice, bob));
+        StompPrincipal principal = connectAlice();
+        subscribe(principal, "channel", "/topic/channel/" + textChannel);
+        subscribe(principal, "presence", "/topic/server/" + server + "/presence");
+        subscribe(principal, "dm", "/topic/channel/" + directChannel);
+        subscribe(principal, "queue", "/queue/user/" + alice);
+
+        membershipListener.accept(alice, server);
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(brokerChannel, times(2)).send(sent.capture());
+        assertThat(sent.getAllValues()).allSatisfy(message ->
+                assertThat(StompHeaderAccessor.wrap(message).getCommand()).isEqualTo(StompCommand.UNSUBSCRIBE));
+        assertThat(sent.getAllValues()).extracting(message -> StompHeaderAccessor.wrap(message).getSubscriptionId())
+                .containsExactlyInAnyOrder("channel", "presence");
+        assertThat(principal.serverIds()).doesNotContain(server);
+    }
+
+    @Test
+    void membershipStillPresentKeepsSubscriptions() {
+        StompPrincipal principal = connectAlice();
+        subscribe(principal, "channel", "/topic/channel/" + textChannel);
+        // A mute or role change evicts the cached membership without removing it
+        when(membershipCache.getMembership(alice, server)).thenReturn(Optional.of(new MembershipSnapshot(MembershipRole.MEMBER, null)));
+
+        membershipListener.accept(alice, server);
+
+        verify(brokerChannel, never()).send(any());
+    }
+
+    private StompPrincipal connectAlice() {
+        Message<byte[]> connect = connect("Bearer " + TOKEN);
+        interceptor.preSend(connect, inbound);
+        return (StompPrincipal) StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).getUser();
+    }
+
+    private static Message<byte[]> connect(String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId("session");
+        accessor.setSessionAttributes(new HashMap<>());
+        if (authorization != null) {
+            accessor.setNativeHeader(StompAuthenticationInterceptor.AUTHORIZATION_HEADER, authorization);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void subscribe(StompPrincipal principal, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session");
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setUser(principal);
+        accessor.setLeaveMutable(true);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), inbound);
+    }
+}